@@ -0,0 +1,108 @@
+// Preprocessing frame kamera dalam satu panggilan JNI: crop + rotasi langsung dari Y plane,
+// resize dan equalizeHist OpenCV (SIMD), lalu normalisasi ke float langsung di buffer input TFLite
+// (atau lookup tabel kuantisasi untuk model dengan input UINT8/INT8).
+// Menggantikan beberapa panggilan JNI dan Mat Java per crop di FramePreprocessor.
+
+#include <jni.h>
+
+#include <opencv2/core.hpp>
+#include <opencv2/imgproc.hpp>
+
+namespace {
+
+// Mat perantara per thread; create() di dalam OpenCV hanya mengalokasikan ulang saat ukuran berubah
+thread_local cv::Mat cropMat;
+thread_local cv::Mat resizedMat;
+
+void throwException(JNIEnv* env, const char* className, const char* message)
+{
+    jclass cls = env->FindClass(className);
+    if (cls)
+        env->ThrowNew(cls, message);
+}
+
+void throwIllegalArgument(JNIEnv* env, const char* message)
+{
+    throwException(env, "java/lang/IllegalArgumentException", message);
+}
+
+} // namespace
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_trafficsignsclassification_NativePreprocessor_nPreprocess(
+        JNIEnv* env, jclass, jobject plane, jint rowStride, jint width, jint height, jint rotation,
+        jint left, jint top, jint size, jobject dst, jint dstOffset, jint dstWidth, jint dstHeight,
+        jbyteArray quantization, jboolean areaFirst)
+{
+    uchar* planeData = static_cast<uchar*>(env->GetDirectBufferAddress(plane));
+    jlong planeCapacity = env->GetDirectBufferCapacity(plane);
+    uchar* dstData = static_cast<uchar*>(env->GetDirectBufferAddress(dst));
+    jlong dstCapacity = env->GetDirectBufferCapacity(dst);
+    if (!planeData || !dstData) {
+        throwIllegalArgument(env, "Plane dan buffer tujuan harus direct ByteBuffer");
+        return;
+    }
+
+    // Region (left, top, size) berada di frame yang sudah dirotasi searah jarum jam; cari region
+    // yang sama di frame asli, seperti FrameConverter.copyRotatedRegion()
+    int x, y;
+    int rotateCode = -1;
+    switch (rotation) {
+        case 0:   x = left;                y = top;                  break;
+        case 90:  x = top;                 y = height - left - size; rotateCode = cv::ROTATE_90_CLOCKWISE; break;
+        case 180: x = width - left - size; y = height - top - size;  rotateCode = cv::ROTATE_180; break;
+        case 270: x = width - top - size;  y = left;                 rotateCode = cv::ROTATE_90_COUNTERCLOCKWISE; break;
+        default:
+            throwIllegalArgument(env, "Rotasi tidak didukung");
+            return;
+    }
+    if (size <= 0 || x < 0 || y < 0 || x + size > width || y + size > height
+            || (jlong)(y + size - 1) * rowStride + x + size > planeCapacity) {
+        throwIllegalArgument(env, "Region crop berada di luar frame");
+        return;
+    }
+    // dstOffset dalam byte; satu piksel input 4 byte untuk float, 1 byte untuk input terkuantisasi
+    jlong pixelBytes = quantization ? 1 : sizeof(float);
+    if (dstWidth <= 0 || dstHeight <= 0 || dstOffset < 0
+            || dstOffset + (jlong)dstWidth * dstHeight * pixelBytes > dstCapacity) {
+        throwIllegalArgument(env, "Buffer tujuan terlalu kecil");
+        return;
+    }
+    uchar table[256];
+    if (quantization) {
+        if (env->GetArrayLength(quantization) < 256) {
+            throwIllegalArgument(env, "Tabel kuantisasi harus berisi 256 entri");
+            return;
+        }
+        env->GetByteArrayRegion(quantization, 0, 256, reinterpret_cast<jbyte*>(table));
+    }
+
+    try {
+        // Header di atas memori kamera, tanpa salinan; Y plane tidak pernah ditulis
+        cv::Mat region(size, size, CV_8UC1, planeData + (size_t)y * rowStride + x, (size_t)rowStride);
+        cv::Mat input(dstHeight, dstWidth, quantization ? CV_8UC1 : CV_32FC1, dstData + dstOffset);
+        cv::Size inputSize(dstWidth, dstHeight);
+
+        const cv::Mat* crop = &region;
+        if (rotateCode >= 0) {
+            cv::rotate(region, cropMat, rotateCode);
+            crop = &cropMat;
+        }
+        if (areaFirst) {
+            // Urutan FusedPreprocessKernel: resize area lalu equalize hasil kecilnya
+            cv::resize(*crop, resizedMat, inputSize, 0, 0, cv::INTER_AREA);
+            cv::equalizeHist(resizedMat, resizedMat);
+        } else {
+            // Urutan FramePreprocessor: equalize crop penuh (ke cropMat, bukan ke Y plane) lalu resize
+            cv::equalizeHist(*crop, cropMat);
+            cv::resize(cropMat, resizedMat, inputSize);
+        }
+        // Ukuran dan tipe sudah sama, jadi LUT/convertTo menulis langsung ke buffer TFLite
+        if (quantization)
+            cv::LUT(resizedMat, cv::Mat(1, 256, CV_8UC1, table), input);
+        else
+            resizedMat.convertTo(input, CV_32F, 1.0 / 255);
+    } catch (const cv::Exception& e) {
+        throwException(env, "java/lang/RuntimeException", e.what());
+    }
+}
@@ -0,0 +1,226 @@
+package com.trafficsignsclassification;
+
+import org.tensorflow.lite.DataType;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Cache LRU kecil untuk hasil klasifikasi, dengan kunci hash perseptual 64-bit dari crop yang
+ * sudah di-preprocess (isi buffer input model). Saat kamera diam, crop berikutnya hampir sama
+ * dengan yang sebelumnya, jadi hash-nya hanya berbeda beberapa bit; lookup mencari entri dengan
+ * jarak Hamming paling kecil yang tidak melebihi maxDistance dan belum lebih tua dari TTL.
+ *
+ * Hash dihitung dari rata-rata blok: AVERAGE membandingkan 8x8 blok dengan rata-rata seluruh
+ * crop (aHash), DIFFERENCE membandingkan setiap blok dengan tetangga kanannya pada grid 9x8
+ * (dHash, lebih tahan terhadap perubahan kecerahan).
+ *
+ * Semua entri dialokasikan saat konstruksi; lookup memindai paling banyak capacity entri dengan
+ * Long.bitCount. Tidak thread-safe kecuali penghitung, yang boleh dibaca dari thread lain.
+ */
+public class ClassificationCache {
+
+    public enum Hash { AVERAGE, DIFFERENCE }
+
+    private static final int HASH_ROWS = 8;
+
+    private final Hash hash;
+    private final int inputWidth;
+    private final int inputHeight;
+    private final DataType inputType;
+    private final int numClasses;
+    private final int capacity;
+    private final int maxDistance;
+    private final long ttlNanos;
+
+    // Blok tempat setiap kolom/baris piksel berada, dan kebalikan luas setiap blok
+    private final int gridColumns;
+    private final int[] columnBlock;
+    private final int[] rowBlock;
+    private final float[] inverseBlockArea;
+    private final float[] blockSums;
+
+    private final long[] hashes;
+    private final long[] storedAt;
+    private final long[] lastUsed;
+    private final float[] scores;
+    private int size;
+    private long useCounter;
+
+    // Hanya ditulis thread pemilik; volatile supaya bisa dibaca untuk laporan dari thread lain
+    private volatile long lookups;
+    private volatile long hits;
+
+    /**
+     * @param capacity jumlah hasil yang disimpan
+     * @param maxDistance jarak Hamming maksimum (0..64) yang masih dianggap crop yang sama
+     * @param ttlNanos umur maksimum entri
+     */
+    public ClassificationCache(TFLiteClassifier classifier, int capacity, int maxDistance, long ttlNanos, Hash hash) {
+        this(classifier.getInputWidth(), classifier.getInputHeight(), classifier.getInputType(),
+                classifier.getNumClasses(), capacity, maxDistance, ttlNanos, hash);
+    }
+
+    ClassificationCache(int inputWidth, int inputHeight, DataType inputType, int numClasses,
+                        int capacity, int maxDistance, long ttlNanos, Hash hash) {
+        gridColumns = hash == Hash.DIFFERENCE ? HASH_ROWS + 1 : HASH_ROWS;
+        if (capacity <= 0 || maxDistance < 0 || maxDistance > 64 || ttlNanos <= 0) {
+            throw new IllegalArgumentException("Ukuran cache, jarak atau TTL tidak valid");
+        }
+        if (inputWidth < gridColumns || inputHeight < HASH_ROWS) {
+            throw new IllegalArgumentException("Input " + inputWidth + "x" + inputHeight + " terlalu kecil untuk hash");
+        }
+        this.hash = hash;
+        this.inputWidth = inputWidth;
+        this.inputHeight = inputHeight;
+        this.inputType = inputType;
+        this.numClasses = numClasses;
+        this.capacity = capacity;
+        this.maxDistance = maxDistance;
+        this.ttlNanos = ttlNanos;
+
+        columnBlock = new int[inputWidth];
+        for (int x = 0; x < inputWidth; x++) {
+            columnBlock[x] = x * gridColumns / inputWidth;
+        }
+        rowBlock = new int[inputHeight];
+        for (int y = 0; y < inputHeight; y++) {
+            rowBlock[y] = y * HASH_ROWS / inputHeight;
+        }
+        int[] blockArea = new int[gridColumns * HASH_ROWS];
+        for (int y = 0; y < inputHeight; y++) {
+            for (int x = 0; x < inputWidth; x++) {
+                blockArea[rowBlock[y] * gridColumns + columnBlock[x]]++;
+            }
+        }
+        inverseBlockArea = new float[blockArea.length];
+        for (int i = 0; i < blockArea.length; i++) {
+            inverseBlockArea[i] = 1f / blockArea[i];
+        }
+        blockSums = new float[blockArea.length];
+
+        hashes = new long[capacity];
+        storedAt = new long[capacity];
+        lastUsed = new long[capacity];
+        scores = new float[capacity * numClasses];
+    }
+
+    /** Hash perseptual sampel ke-slot pada buffer input (format sesuai tensor input classifier). */
+    public long hash(ByteBuffer buffer, int slot) {
+        Arrays.fill(blockSums, 0f);
+        int pixels = inputWidth * inputHeight;
+        int index = slot * pixels;
+        for (int y = 0; y < inputHeight; y++) {
+            int blockRow = rowBlock[y] * gridColumns;
+            for (int x = 0; x < inputWidth; x++, index++) {
+                blockSums[blockRow + columnBlock[x]] += pixel(buffer, index);
+            }
+        }
+        float total = 0f;
+        for (int i = 0; i < blockSums.length; i++) {
+            blockSums[i] *= inverseBlockArea[i];
+            total += blockSums[i];
+        }
+
+        long result = 0L;
+        if (hash == Hash.AVERAGE) {
+            float mean = total / blockSums.length;
+            for (int i = 0; i < blockSums.length; i++) {
+                result = (result << 1) | (blockSums[i] > mean ? 1L : 0L);
+            }
+        } else {
+            for (int row = 0; row < HASH_ROWS; row++) {
+                int start = row * gridColumns;
+                for (int column = 0; column < gridColumns - 1; column++) {
+                    result = (result << 1) | (blockSums[start + column + 1] > blockSums[start + column] ? 1L : 0L);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Nilai tersimpan tensor input; untuk input terkuantisasi urutannya sama dengan piksel aslinya
+    private float pixel(ByteBuffer buffer, int index) {
+        if (inputType == DataType.FLOAT32) {
+            return buffer.getFloat(index * 4);
+        }
+        byte value = buffer.get(index);
+        return inputType == DataType.UINT8 ? value & 0xFF : value;
+    }
+
+    /**
+     * Mencari hasil untuk hash dengan jarak Hamming terkecil (paling jauh maxDistance) yang belum
+     * kedaluwarsa dan menyalin skornya ke out mulai dari offset.
+     *
+     * @return true jika ada (cache hit)
+     */
+    public boolean lookup(long hash, long nowNanos, float[] out, int offset) {
+        lookups++;
+        int best = -1;
+        int bestDistance = maxDistance + 1;
+        for (int i = 0; i < size; i++) {
+            if (nowNanos - storedAt[i] > ttlNanos) {
+                continue;
+            }
+            int distance = Long.bitCount(hashes[i] ^ hash);
+            if (distance < bestDistance) {
+                best = i;
+                bestDistance = distance;
+            }
+        }
+        if (best < 0) {
+            return false;
+        }
+        hits++;
+        lastUsed[best] = ++useCounter;
+        System.arraycopy(scores, best * numClasses, out, offset, numClasses);
+        return true;
+    }
+
+    /**
+     * Menyimpan skor hasil klasifikasi, menggantikan entri yang kedaluwarsa atau yang paling lama
+     * tidak dipakai jika cache penuh. TTL dihitung dari waktu simpan, bukan dari hit terakhir, supaya
+     * hasil lama tetap diperbarui secara berkala walaupun terus terpakai.
+     */
+    public void put(long hash, long nowNanos, float[] values, int offset) {
+        int target;
+        if (size < capacity) {
+            target = size++;
+        } else {
+            target = 0;
+            for (int i = 0; i < size; i++) {
+                if (nowNanos - storedAt[i] > ttlNanos) {
+                    target = i;
+                    break;
+                }
+                if (lastUsed[i] < lastUsed[target]) {
+                    target = i;
+                }
+            }
+        }
+        hashes[target] = hash;
+        storedAt[target] = nowNanos;
+        lastUsed[target] = ++useCounter;
+        System.arraycopy(values, offset, scores, target * numClasses, numClasses);
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /** Proporsi lookup yang hit, 0 jika belum ada lookup. */
+    public float getHitRate() {
+        long total = lookups;
+        return total == 0 ? 0f : (float) hits / total;
+    }
+
+    /** Ringkasan penghitung untuk log. */
+    public String report() {
+        return String.format(Locale.US, "cache %d/%d hit (%.1f%%)", hits, lookups, getHitRate() * 100);
+    }
+}
@@ -0,0 +1,136 @@
+package com.trafficsignsclassification;
+
+import androidx.camera.core.ImageProxy;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Mengubah frame YUV_420_888 dari CameraX menjadi crop grayscale tanpa lewat Bitmap/JPEG.
+ * Hanya Y plane yang dibaca (luma = grayscale), rotasi dan crop dihitung langsung dari
+ * koordinat sehingga tidak ada Bitmap perantara. Buffer hasil dipakai ulang antar frame.
+ */
+public class FrameConverter {
+
+    private final byte[][] cropBuffers;
+    private final int[] cropSizes;
+
+    public FrameConverter() {
+        this(1);
+    }
+
+    /** @param slots jumlah crop yang bisa disimpan sekaligus dari satu frame */
+    public FrameConverter(int slots) {
+        cropBuffers = new byte[slots][0];
+        cropSizes = new int[slots];
+    }
+
+    /**
+     * Menyalin crop persegi di tengah frame (setelah dirotasi sesuai rotationDegrees)
+     * ke buffer slot 0. Ukuran crop sama seperti sebelumnya: min(lebar, tinggi) / 2.
+     *
+     * @return ukuran sisi crop dalam piksel
+     */
+    public int extractCenterCrop(ImageProxy image) {
+        int rotatedWidth = getRotatedWidth(image);
+        int rotatedHeight = getRotatedHeight(image);
+        int size = Math.min(rotatedWidth, rotatedHeight) / 2;
+        return extractRegion(image, 0, (rotatedWidth - size) / 2, (rotatedHeight - size) / 2, size);
+    }
+
+    /** Lebar frame setelah dirotasi sesuai rotationDegrees. */
+    static int getRotatedWidth(ImageProxy image) {
+        int rotation = image.getImageInfo().getRotationDegrees();
+        return rotation == 90 || rotation == 270 ? image.getHeight() : image.getWidth();
+    }
+
+    /** Tinggi frame setelah dirotasi sesuai rotationDegrees. */
+    static int getRotatedHeight(ImageProxy image) {
+        int rotation = image.getImageInfo().getRotationDegrees();
+        return rotation == 90 || rotation == 270 ? image.getWidth() : image.getHeight();
+    }
+
+    /**
+     * Menyalin region persegi ke buffer slot tertentu. Koordinat left/top dalam frame yang
+     * sudah dirotasi dan harus berada di dalam frame.
+     *
+     * @return ukuran sisi crop dalam piksel
+     */
+    public int extractRegion(ImageProxy image, int slot, int left, int top, int size) {
+        if (cropBuffers[slot].length < size * size) {
+            cropBuffers[slot] = new byte[size * size];
+        }
+        cropSizes[slot] = size;
+
+        ImageProxy.PlaneProxy yPlane = image.getPlanes()[0];
+        copyRotatedRegion(yPlane.getBuffer(), yPlane.getRowStride(), yPlane.getPixelStride(),
+                image.getWidth(), image.getHeight(), image.getImageInfo().getRotationDegrees(),
+                left, top, size, cropBuffers[slot]);
+        return size;
+    }
+
+    public byte[] getCropBuffer(int slot) {
+        return cropBuffers[slot];
+    }
+
+    public int getCropSize(int slot) {
+        return cropSizes[slot];
+    }
+
+    /**
+     * Menyalin region persegi (koordinat frame yang SUDAH dirotasi searah jarum jam) dari
+     * plane 8-bit ke dst, baris per baris. Row stride dan pixel stride plane dihormati.
+     */
+    static void copyRotatedRegion(ByteBuffer plane, int rowStride, int pixelStride,
+                                  int width, int height, int rotation,
+                                  int left, int top, int size, byte[] dst) {
+        int out = 0;
+        switch (rotation) {
+            case 0:
+                if (pixelStride == 1) {
+                    for (int r = 0; r < size; r++) {
+                        plane.position((top + r) * rowStride + left);
+                        plane.get(dst, out, size);
+                        out += size;
+                    }
+                    plane.rewind();
+                    return;
+                }
+                for (int r = 0; r < size; r++) {
+                    int index = (top + r) * rowStride + left * pixelStride;
+                    for (int c = 0; c < size; c++, index += pixelStride) {
+                        dst[out++] = plane.get(index);
+                    }
+                }
+                return;
+            case 90:
+                // (xr, yr) pada frame terotasi berasal dari (x = yr, y = height - 1 - xr)
+                for (int r = 0; r < size; r++) {
+                    int index = (height - 1 - left) * rowStride + (top + r) * pixelStride;
+                    for (int c = 0; c < size; c++, index -= rowStride) {
+                        dst[out++] = plane.get(index);
+                    }
+                }
+                return;
+            case 180:
+                // (xr, yr) berasal dari (x = width - 1 - xr, y = height - 1 - yr)
+                for (int r = 0; r < size; r++) {
+                    int index = (height - 1 - top - r) * rowStride + (width - 1 - left) * pixelStride;
+                    for (int c = 0; c < size; c++, index -= pixelStride) {
+                        dst[out++] = plane.get(index);
+                    }
+                }
+                return;
+            case 270:
+                // (xr, yr) berasal dari (x = width - 1 - yr, y = xr)
+                for (int r = 0; r < size; r++) {
+                    int index = left * rowStride + (width - 1 - top - r) * pixelStride;
+                    for (int c = 0; c < size; c++, index += rowStride) {
+                        dst[out++] = plane.get(index);
+                    }
+                }
+                return;
+            default:
+                throw new IllegalArgumentException("Rotasi tidak didukung: " + rotation);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.trafficsignsclassification;
+
+import android.util.Log;
+
+import androidx.camera.core.ImageProxy;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipeline bertahap untuk frame kamera: acquire → preprocess → inferensi → postprocess.
+ *
+ * Tahap acquire (thread analyzer CameraX) menyalin crop dari Y plane ke sebuah FrameJob lalu
+ * langsung menutup ImageProxy. Preprocess dan inferensi masing-masing berjalan di executor
+ * sendiri, jadi frame berikutnya sudah bisa di-preprocess selagi frame sebelumnya berada di
+ * interpreter. Antar tahap dipakai SpscRingBuffer (lock-free). Job yang sudah diinferensi
+ * dikembalikan ke thread analyzer dan diproses di drainCompleted(), karena postprocess
+ * mengubah state tracker dan aggregator yang dimiliki thread tersebut.
+ *
+ * Dengan preprocess native (NativePreprocessor) pembagian itu hilang: crop, equalize dan resize
+ * dikerjakan di tahap acquire langsung dari Y plane, karena ImageProxy harus ditutup sebelum
+ * frame diserahkan dan menyalin Y plane lebih dulu justru menghapus keuntungannya. Tahap
+ * preprocess lalu hanya mengerjakan slot yang jatuh ke jalur Java (Y plane tidak bisa dibaca
+ * langsung atau panggilan native gagal), jadi praktis hanya meneruskan job ke inferensi.
+ *
+ * Jumlah job tetap (depth). Jika semua job masih di dalam pipeline, obtain() mengembalikan
+ * null dan frame harus ditolak: itulah backpressure-nya, antrian tidak pernah tumbuh.
+ */
+public class FramePipeline {
+
+    private static final String TAG = "FramePipeline";
+
+    /** Satu frame yang sedang berjalan di pipeline beserta buffer miliknya sendiri. */
+    public static class FrameJob {
+        final FrameConverter converter;
+        final ByteBuffer inputBuffer;
+        final FramePreprocessor preprocessor;
+        // Null jika preprocess native tidak dipakai
+        final NativePreprocessor nativePreprocessor;
+        final float[] scores;
+        final SignTracker.Track[] tracks;
+        // ID setiap track saat crop-nya ditambahkan, karena objek track bisa dipakai ulang
+        final int[] trackIds;
+
+        // Diisi tahap acquire; slot yang sudah ditulis native dilewati tahap preprocess
+        int slots;
+        final boolean[] preprocessed;
+        boolean classifyCenter;
+        int trackCount;
+        long startNanos;
+
+        // Diisi tahap preprocess dan inferensi
+        long preprocessNanos;
+        long inferenceNanos;
+        boolean failed;
+
+        FrameJob(TFLiteClassifier classifier, boolean fusedPreprocessing, boolean nativePreprocessing) {
+            int maxBatchSize = classifier.getMaxBatchSize();
+            converter = new FrameConverter(maxBatchSize);
+            inputBuffer = classifier.newInputBuffer();
+            preprocessor = new FramePreprocessor(classifier, inputBuffer, fusedPreprocessing);
+            nativePreprocessor = nativePreprocessing
+                    ? new NativePreprocessor(classifier, inputBuffer, fusedPreprocessing) : null;
+            scores = new float[maxBatchSize * classifier.getNumClasses()];
+            tracks = new SignTracker.Track[maxBatchSize];
+            trackIds = new int[maxBatchSize];
+            preprocessed = new boolean[maxBatchSize];
+        }
+
+        /** Thread analyzer. Menambahkan crop tengah frame (min(lebar, tinggi) / 2) sebagai slot berikutnya. */
+        public int addCenterCrop(ImageProxy image) {
+            int rotatedWidth = FrameConverter.getRotatedWidth(image);
+            int rotatedHeight = FrameConverter.getRotatedHeight(image);
+            int size = Math.min(rotatedWidth, rotatedHeight) / 2;
+            return addRegion(image, (rotatedWidth - size) / 2, (rotatedHeight - size) / 2, size);
+        }
+
+        /**
+         * Thread analyzer. Menambahkan region persegi (koordinat frame terotasi) sebagai slot
+         * berikutnya. Dengan preprocess native, region langsung ditulis ke buffer input; selain
+         * itu crop disalin dari Y plane untuk tahap preprocess. ImageProxy boleh ditutup setelahnya.
+         *
+         * @return index slot
+         */
+        public int addRegion(ImageProxy image, int left, int top, int size) {
+            int slot = slots++;
+            preprocessed[slot] = false;
+            if (nativePreprocessor != null) {
+                try {
+                    preprocessed[slot] = nativePreprocessor.process(image, left, top, size, slot);
+                } catch (RuntimeException e) {
+                    // Jangan sampai keluar dari analyzer: ImageProxy dan job harus tetap dikembalikan
+                    Log.e(TAG, "Preprocess native gagal, memakai jalur Java", e);
+                }
+            }
+            if (!preprocessed[slot]) {
+                converter.extractRegion(image, slot, left, top, size);
+            }
+            return slot;
+        }
+    }
+
+    /** Dipanggil di thread analyzer untuk setiap job yang sudah selesai diinferensi. */
+    public interface ResultHandler {
+        void onResult(FrameJob job);
+    }
+
+    private final ModelCascade cascade;
+    private final FrameJob[] jobs;
+    private final FrameJob[] freeJobs;
+    private int freeCount;
+
+    private final SpscRingBuffer<FrameJob> preprocessQueue;
+    private final SpscRingBuffer<FrameJob> inferenceQueue;
+    private final SpscRingBuffer<FrameJob> completedQueue;
+    private final ExecutorService preprocessExecutor =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "pipeline-preprocess"));
+    private final ExecutorService inferenceExecutor =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "pipeline-inference"));
+
+    /**
+     * @param cascade classifier beserta model gerbang opsionalnya; inferensi setiap job lewat sini
+     * @param depth jumlah frame yang boleh berada di pipeline sekaligus
+     * @param fusedPreprocessing preprocess dengan FusedPreprocessKernel alih-alih OpenCV
+     * @param nativePreprocessing preprocess langsung dari Y plane lewat NativePreprocessor jika
+     *                            library-nya tersedia; urutan operasinya mengikuti fusedPreprocessing
+     */
+    public FramePipeline(ModelCascade cascade, int depth, boolean fusedPreprocessing,
+                         boolean nativePreprocessing) {
+        this.cascade = cascade;
+        TFLiteClassifier classifier = cascade.getClassifier();
+        boolean useNative = nativePreprocessing && NativePreprocessor.isAvailable();
+        Log.d(TAG, "Preprocess: " + (useNative ? "native" : fusedPreprocessing ? "Java fused" : "OpenCV"));
+        jobs = new FrameJob[depth];
+        freeJobs = new FrameJob[depth];
+        for (int i = 0; i < depth; i++) {
+            jobs[i] = new FrameJob(classifier, fusedPreprocessing, useNative);
+            cascade.registerInputBuffer(jobs[i].inputBuffer);
+            freeJobs[freeCount++] = jobs[i];
+        }
+        // Setiap antrian muat semua job, jadi offer() antar tahap tidak pernah gagal
+        preprocessQueue = new SpscRingBuffer<>(depth);
+        inferenceQueue = new SpscRingBuffer<>(depth);
+        completedQueue = new SpscRingBuffer<>(depth);
+    }
+
+    public void start() {
+        preprocessExecutor.execute(this::preprocessLoop);
+        inferenceExecutor.execute(this::inferenceLoop);
+    }
+
+    /** Thread analyzer. @return job kosong, atau null jika pipeline penuh */
+    public FrameJob obtain() {
+        if (freeCount == 0) {
+            return null;
+        }
+        FrameJob job = freeJobs[--freeCount];
+        job.slots = 0;
+        job.classifyCenter = false;
+        job.trackCount = 0;
+        job.failed = false;
+        job.startNanos = System.nanoTime();
+        return job;
+    }
+
+    /** Thread analyzer. Mengirim job yang crop-nya sudah terisi ke tahap preprocess. */
+    public void submit(FrameJob job) {
+        enqueue(preprocessQueue, job);
+    }
+
+    /** Thread analyzer. Mengembalikan job yang tidak jadi dikirim. */
+    public void recycle(FrameJob job) {
+        Arrays.fill(job.tracks, null);
+        freeJobs[freeCount++] = job;
+    }
+
+    /** Thread analyzer. Memproses semua job yang sudah selesai lalu mengembalikannya ke pool. */
+    public int drainCompleted(ResultHandler handler) {
+        int drained = 0;
+        FrameJob job;
+        while ((job = completedQueue.poll()) != null) {
+            handler.onResult(job);
+            recycle(job);
+            drained++;
+        }
+        return drained;
+    }
+
+    /** Jumlah job yang sedang berada di tahap preprocess/inferensi. */
+    public int getInFlight() {
+        return jobs.length - freeCount;
+    }
+
+    /**
+     * Menghentikan thread tahap dan melepas Mat milik setiap job. Panggil setelah analyzer
+     * berhenti, karena job yang sedang di tahap acquire tidak ikut ditunggu.
+     *
+     * @return false jika thread tahap belum berhenti dalam batas waktu; interpreter mungkin masih
+     *         berjalan, jadi classifier belum boleh ditutup
+     */
+    public boolean shutdown() {
+        preprocessExecutor.shutdownNow();
+        inferenceExecutor.shutdownNow();
+        boolean stopped = false;
+        try {
+            stopped = preprocessExecutor.awaitTermination(1, TimeUnit.SECONDS)
+                    & inferenceExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!stopped) {
+            // Mat preprocess mungkin masih dipakai; close() di sini akan membebaskan memori yang sedang dibaca
+            Log.w(TAG, "Thread pipeline belum berhenti, Mat preprocess tidak dilepas");
+            return false;
+        }
+        for (FrameJob job : jobs) {
+            Log.d(TAG, "Mat pool preprocess: " + job.preprocessor.getMatPool());
+            job.preprocessor.release();
+        }
+        return true;
+    }
+
+    private void preprocessLoop() {
+        try {
+            while (true) {
+                FrameJob job = preprocessQueue.take();
+                long start = System.nanoTime();
+                try {
+                    for (int slot = 0; slot < job.slots; slot++) {
+                        if (!job.preprocessed[slot]) {
+                            job.preprocessor.process(job.converter.getCropBuffer(slot), job.converter.getCropSize(slot), slot);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Preprocess gagal", e);
+                    job.failed = true;
+                }
+                job.preprocessNanos = System.nanoTime() - start;
+                // Job gagal tetap lewat tahap inferensi supaya setiap antrian hanya punya satu produsen
+                enqueue(inferenceQueue, job);
+            }
+        } catch (InterruptedException e) {
+            // Pipeline dihentikan
+        }
+    }
+
+    private void inferenceLoop() {
+        try {
+            while (true) {
+                FrameJob job = inferenceQueue.take();
+                if (job.failed) {
+                    enqueue(completedQueue, job);
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    cascade.run(job.inputBuffer, job.slots, job.scores);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Inferensi gagal", e);
+                    job.failed = true;
+                }
+                job.inferenceNanos = System.nanoTime() - start;
+                enqueue(completedQueue, job);
+            }
+        } catch (InterruptedException e) {
+            // Pipeline dihentikan
+        }
+    }
+
+    private static void enqueue(SpscRingBuffer<FrameJob> queue, FrameJob job) {
+        if (!queue.offer(job)) {
+            throw new IllegalStateException("Antrian pipeline penuh");
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.trafficsignsclassification;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatPool;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Tahap preprocessing crop grayscale menjadi input model: equalizeHist, resize, lalu normalisasi
+ * ke [0, 1]. Mat sementara diambil dari MatPool dan dikembalikan di akhir setiap crop, jadi
+ * crop dengan ukuran yang sama tidak mengalokasikan ulang memori native. Hasil akhir ditulis langsung ke buffer input
+ * TFLite lewat Mat yang membungkus direct ByteBuffer tersebut, jadi tidak ada salinan tambahan.
+ * Untuk model dengan batch lebih dari satu, setiap slot batch punya Mat sendiri di atas
+ * potongan (slice) buffer input.
+ *
+ * Dengan mode fused, semua tahap itu diganti FusedPreprocessKernel yang bekerja tanpa OpenCV
+ * dan menulis langsung ke view float dari buffer input.
+ * Urutannya berbeda (resize area dulu, baru equalize), jadi distribusi input ikut berubah: noise
+ * halus teredam dan histogram dihitung dari 32x32 piksel, bukan dari crop penuh. Selisihnya
+ * jauh di atas satu level 8-bit (lihat FusedKernelEquivalenceTest di modul benchmark), sehingga
+ * mode fused tidak dipakai secara bawaan sampai model divalidasi ulang dengan input ini.
+ *
+ * Untuk model dengan input UINT8/INT8 normalisasi float dilewati: hasil equalize dipetakan dengan
+ * tabel kuantisasi classifier (Core.LUT, atau lookup di kernel fused) langsung ke byte buffer input.
+ */
+public class FramePreprocessor {
+
+    private final MatPool matPool = new MatPool();
+    private final Size inputSize;
+    private final int inputWidth;
+    private final int inputHeight;
+
+    // Mat per slot batch yang memakai memori buffer input TFLite, atau null jika buffer tidak bisa dibungkus
+    private final Mat[] inputMats;
+    private final ByteBuffer inputBuffer;
+    private final FloatBuffer inputFloats;
+    private final float[] scratch;
+    private final int bytesPerSample;
+    // Tabel piksel -> nilai tersimpan untuk input terkuantisasi, null untuk input float
+    private final byte[] quantization;
+    private final Mat quantizationMat;
+    private final byte[] scratchBytes;
+    // Kernel Java satu lintasan, atau null untuk jalur OpenCV
+    private final FusedPreprocessKernel fusedKernel;
+
+    public FramePreprocessor(TFLiteClassifier classifier, boolean fused) {
+        this(classifier, classifier.getInputBuffer(), fused);
+    }
+
+    /**
+     * @param inputBuffer buffer input classifier atau buffer dari classifier.newInputBuffer()
+     * @param fused true untuk memakai FusedPreprocessKernel (resize area, lalu equalize) alih-alih OpenCV
+     */
+    public FramePreprocessor(TFLiteClassifier classifier, ByteBuffer inputBuffer, boolean fused) {
+        inputWidth = classifier.getInputWidth();
+        inputHeight = classifier.getInputHeight();
+        inputSize = new Size(inputWidth, inputHeight);
+        this.inputBuffer = inputBuffer;
+        bytesPerSample = classifier.getInputBytesPerSample();
+        quantization = classifier.getInputQuantization();
+
+        if (fused) {
+            // Kernel menulis langsung ke buffer input, jadi Mat input dan scratch tidak dibutuhkan
+            fusedKernel = new FusedPreprocessKernel(inputWidth, inputHeight);
+            inputMats = null;
+            inputFloats = quantization == null ? inputBuffer.asFloatBuffer() : null;
+            scratch = null;
+            quantizationMat = null;
+            scratchBytes = null;
+            return;
+        }
+        fusedKernel = null;
+        if (quantization != null) {
+            quantizationMat = new Mat(1, 256, CvType.CV_8UC1);
+            quantizationMat.put(0, 0, quantization);
+        } else {
+            quantizationMat = null;
+        }
+        int inputType = quantization == null ? CvType.CV_32FC1 : CvType.CV_8UC1;
+        if (inputBuffer.isDirect()) {
+            inputMats = new Mat[classifier.getMaxBatchSize()];
+            for (int i = 0; i < inputMats.length; i++) {
+                inputBuffer.position(i * bytesPerSample);
+                ByteBuffer slice = inputBuffer.slice();
+                inputMats[i] = new Mat(inputHeight, inputWidth, inputType, slice);
+            }
+            inputBuffer.rewind();
+            inputFloats = null;
+            scratch = null;
+            scratchBytes = null;
+        } else if (quantization == null) {
+            inputMats = null;
+            inputFloats = inputBuffer.asFloatBuffer();
+            scratch = new float[inputWidth * inputHeight];
+            scratchBytes = null;
+        } else {
+            inputMats = null;
+            inputFloats = null;
+            scratch = null;
+            scratchBytes = new byte[bytesPerSample];
+        }
+    }
+
+    /**
+     * Memproses crop grayscale berukuran size x size dan mengisi slot batch tertentu
+     * pada buffer input model.
+     */
+    public void process(byte[] gray, int size, int slot) {
+        if (fusedKernel != null) {
+            if (quantization != null) {
+                fusedKernel.process(gray, size, size, quantization, inputBuffer, slot * bytesPerSample);
+            } else {
+                fusedKernel.process(gray, size, size, inputFloats, slot * inputWidth * inputHeight);
+            }
+            return;
+        }
+        // mark/releaseTo alih-alih MatPool.Scope supaya tidak ada objek baru per crop
+        int mark = matPool.mark();
+        try {
+            Mat grayMat = matPool.acquire(size, size, CvType.CV_8UC1);
+            grayMat.put(0, 0, gray, 0, size * size);
+
+            Mat resizedMat = matPool.acquire(inputHeight, inputWidth, CvType.CV_8UC1);
+            Imgproc.equalizeHist(grayMat, grayMat);
+            Imgproc.resize(grayMat, resizedMat, inputSize);
+
+            if (quantization != null && inputMats != null) {
+                // Input terkuantisasi: satu lookup per piksel langsung ke buffer TFLite, tanpa float
+                Core.LUT(resizedMat, quantizationMat, inputMats[slot]);
+            } else if (quantization != null) {
+                Core.LUT(resizedMat, quantizationMat, resizedMat);
+                resizedMat.get(0, 0, scratchBytes);
+                inputBuffer.position(slot * bytesPerSample);
+                inputBuffer.put(scratchBytes);
+            } else if (inputMats != null) {
+                // Ukuran dan tipe sudah sama, jadi convertTo menulis langsung ke buffer TFLite
+                resizedMat.convertTo(inputMats[slot], CvType.CV_32F, 1.0 / 255);
+            } else {
+                Mat floatMat = matPool.acquire(inputHeight, inputWidth, CvType.CV_32FC1);
+                resizedMat.convertTo(floatMat, CvType.CV_32F, 1.0 / 255);
+                floatMat.get(0, 0, scratch);
+                inputFloats.position(slot * scratch.length);
+                inputFloats.put(scratch);
+            }
+        } finally {
+            matPool.releaseTo(mark);
+        }
+    }
+
+    /** Statistik Mat sementara, untuk melihat kebocoran memori native. */
+    public MatPool getMatPool() {
+        return matPool;
+    }
+
+    public void release() {
+        matPool.clear();
+        if (quantizationMat != null) {
+            quantizationMat.close();
+        }
+        if (inputMats != null) {
+            for (Mat inputMat : inputMats) {
+                inputMat.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.trafficsignsclassification;
+
+import androidx.camera.core.ImageProxy;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Penjadwal yang menentukan apakah sebuah frame perlu diklasifikasi. Y plane diperkecil menjadi
+ * grid kecil (rata-rata 2x2 piksel per sel), lalu dibandingkan dengan grid frame terakhir yang
+ * diinferensi memakai SAD (rata-rata selisih absolut). Inferensi hanya dijalankan jika isi
+ * frame cukup berubah atau jeda maksimum sudah terlewati, sehingga reaksi tetap terbatas.
+ */
+public class FrameSkipScheduler {
+
+    private final int gridWidth;
+    private final int gridHeight;
+    private final int changeThreshold;
+    private final long maxIntervalNanos;
+
+    private final int[] current;
+    private final int[] reference;
+    private boolean hasReference;
+    private long lastInferenceNanos;
+    private int lastChange;
+
+    /**
+     * @param changeThreshold  rata-rata selisih luma per sel (0..255) yang dianggap adegan berubah
+     * @param maxIntervalNanos jeda maksimum antar inferensi walaupun adegan tidak berubah
+     */
+    public FrameSkipScheduler(int gridWidth, int gridHeight, int changeThreshold, long maxIntervalNanos) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.changeThreshold = changeThreshold;
+        this.maxIntervalNanos = maxIntervalNanos;
+        this.current = new int[gridWidth * gridHeight];
+        this.reference = new int[gridWidth * gridHeight];
+    }
+
+    public boolean shouldRun(ImageProxy image) {
+        ImageProxy.PlaneProxy yPlane = image.getPlanes()[0];
+        return shouldRun(yPlane.getBuffer(), yPlane.getRowStride(), yPlane.getPixelStride(),
+                image.getWidth(), image.getHeight(), image.getImageInfo().getTimestamp());
+    }
+
+    /**
+     * Mengambil sampel frame ini dan membandingkannya dengan frame terakhir yang diinferensi.
+     * Jika frame jadi diinferensi, panggil markInferred() agar sampel ini menjadi acuan baru.
+     */
+    public boolean shouldRun(ByteBuffer plane, int rowStride, int pixelStride,
+                             int width, int height, long timestampNanos) {
+        sample(plane, rowStride, pixelStride, width, height);
+        if (!hasReference || timestampNanos - lastInferenceNanos >= maxIntervalNanos) {
+            lastChange = Integer.MAX_VALUE;
+            return true;
+        }
+
+        int sum = 0;
+        for (int i = 0; i < current.length; i++) {
+            sum += Math.abs(current[i] - reference[i]);
+        }
+        lastChange = sum / current.length;
+        return lastChange >= changeThreshold;
+    }
+
+    /** Menjadikan sampel terakhir sebagai acuan; dipanggil setelah frame benar-benar diinferensi. */
+    public void markInferred(long timestampNanos) {
+        System.arraycopy(current, 0, reference, 0, current.length);
+        hasReference = true;
+        lastInferenceNanos = timestampNanos;
+    }
+
+    /** Nilai SAD rata-rata dari pemanggilan shouldRun() terakhir. */
+    public int getLastChange() {
+        return lastChange;
+    }
+
+    public void reset() {
+        hasReference = false;
+    }
+
+    private void sample(ByteBuffer plane, int rowStride, int pixelStride, int width, int height) {
+        int cellWidth = width / gridWidth;
+        int cellHeight = height / gridHeight;
+        int i = 0;
+        for (int gy = 0; gy < gridHeight; gy++) {
+            int y = gy * cellHeight + cellHeight / 2;
+            int row0 = y * rowStride;
+            int row1 = Math.min(y + 1, height - 1) * rowStride;
+            for (int gx = 0; gx < gridWidth; gx++) {
+                int x = gx * cellWidth + cellWidth / 2;
+                int col0 = x * pixelStride;
+                int col1 = Math.min(x + 1, width - 1) * pixelStride;
+                current[i++] = ((plane.get(row0 + col0) & 0xFF) + (plane.get(row0 + col1) & 0xFF)
+                        + (plane.get(row1 + col0) & 0xFF) + (plane.get(row1 + col1) & 0xFF)) >> 2;
+            }
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.trafficsignsclassification;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Preprocessing crop grayscale dalam satu kernel Java murni: crop di-downsample dengan rata-rata
+ * area langsung ke ukuran input model, histogram hasil kecil itu di-equalize, lalu nilainya
+ * dinormalisasi ke [0, 1] dan ditulis ke buffer input. Jalur OpenCV (equalizeHist pada crop
+ * penuh, resize, convertTo) melewati puluhan ribu piksel beberapa kali dan memakai tiga Mat
+ * perantara; di sini crop hanya dibaca sekali dan sisanya bekerja pada 32x32 piksel.
+ *
+ * Hasilnya setara dengan cv::resize(INTER_AREA) -> cv::equalizeHist -> convertTo(CV_32F, 1/255):
+ * bobot area, pembulatan ke genap terdekat dan rumus LUT equalize sama, hanya urutan penjumlahan
+ * float yang berbeda, jadi sesekali piksel yang rata-ratanya tepat di batas pembulatan jatuh ke
+ * level sebelahnya. Untuk crop yang lebih kecil dari input model bobot area yang sama dipakai
+ * (upsample kotak), sedangkan OpenCV beralih ke interpolasi linear.
+ *
+ * Perhatikan bahwa urutannya berbeda dari jalur OpenCV di FramePreprocessor, yang meng-equalize
+ * crop penuh sebelum resize; histogram 32x32 piksel sedikit lebih kasar.
+ *
+ * Untuk model terkuantisasi ada varian yang menulis byte: nilai hasil equalize langsung dipetakan
+ * ke nilai tersimpan tensor input, tanpa konversi float.
+ *
+ * Tidak ada alokasi per pemanggilan; bobot hanya dihitung ulang saat ukuran crop berubah dan
+ * buffer kolom hanya tumbuh. Tidak thread-safe: pakai satu instance per thread.
+ */
+public final class FusedPreprocessKernel {
+
+    private static final float NORMALIZE_SCALE = 1f / 255f;
+    // Irisan yang lebih tipis dari ini diabaikan, sama seperti computeResizeAreaTab di OpenCV
+    private static final double MIN_OVERLAP = 1e-3;
+
+    /**
+     * Pembagian satu sumbu menjadi sel tujuan. Setiap sel terdiri dari piksel sumber yang penuh
+     * di dalamnya [fullStart, fullEnd) ditambah paling banyak dua piksel tepi yang terpotong,
+     * masing-masing dengan bobot irisannya.
+     */
+    private static final class Axis {
+        final int[] fullStart;
+        final int[] fullEnd;
+        final int[] first;
+        final float[] firstWeight;
+        final int[] last;
+        final float[] lastWeight;
+        final float[] inverseCell;
+        int sourceSize = -1;
+
+        Axis(int cells) {
+            fullStart = new int[cells];
+            fullEnd = new int[cells];
+            first = new int[cells];
+            firstWeight = new float[cells];
+            last = new int[cells];
+            lastWeight = new float[cells];
+            inverseCell = new float[cells];
+        }
+
+        void build(int srcSize) {
+            int cells = fullStart.length;
+            double scale = 1.0 / ((double) cells / srcSize);
+            for (int d = 0; d < cells; d++) {
+                double start = d * scale;
+                double end = Math.min(start + scale, srcSize);
+                int full0 = (int) Math.ceil(start);
+                int full1 = (int) Math.floor(end);
+                first[d] = 0;
+                firstWeight[d] = 0f;
+                last[d] = 0;
+                lastWeight[d] = 0f;
+                if (full0 > full1) {
+                    // Sel berada di dalam satu piksel sumber (upsample)
+                    fullStart[d] = 0;
+                    fullEnd[d] = 0;
+                    first[d] = full1;
+                    firstWeight[d] = (float) (end - start);
+                } else {
+                    fullStart[d] = full0;
+                    fullEnd[d] = full1;
+                    if (full0 - start > MIN_OVERLAP) {
+                        first[d] = full0 - 1;
+                        firstWeight[d] = (float) (full0 - start);
+                    }
+                    if (end - full1 > MIN_OVERLAP) {
+                        last[d] = full1;
+                        lastWeight[d] = (float) (end - full1);
+                    }
+                }
+                inverseCell[d] = (float) (1.0 / (end - start));
+            }
+            sourceSize = srcSize;
+        }
+    }
+
+    private final int outputWidth;
+    private final int outputHeight;
+    private final Axis columns;
+    private final Axis rows;
+    private final byte[] resized;
+    private final float[] output;
+    private final byte[] quantizedOutput;
+    private final int[] histogram = new int[256];
+    // Nilai hasil equalizeHist untuk setiap level 0..255
+    private final int[] equalized = new int[256];
+    private final float[] lut = new float[256];
+    // Jumlah per kolom sumber untuk satu baris tujuan
+    private int[] columnSums = new int[0];
+    private float[] columnValues = new float[0];
+
+    public FusedPreprocessKernel(int outputWidth, int outputHeight) {
+        this.outputWidth = outputWidth;
+        this.outputHeight = outputHeight;
+        columns = new Axis(outputWidth);
+        rows = new Axis(outputHeight);
+        resized = new byte[outputWidth * outputHeight];
+        output = new float[outputWidth * outputHeight];
+        quantizedOutput = new byte[outputWidth * outputHeight];
+    }
+
+    public int getOutputWidth() {
+        return outputWidth;
+    }
+
+    public int getOutputHeight() {
+        return outputHeight;
+    }
+
+    /**
+     * Memproses crop srcWidth x srcHeight (baris rapat, tanpa padding) dan menulis
+     * outputWidth * outputHeight float mulai dari dst[offset].
+     */
+    public void process(byte[] src, int srcWidth, int srcHeight, float[] dst, int offset) {
+        if (offset < 0 || dst.length - offset < resized.length) {
+            throw new IllegalArgumentException("Buffer output terlalu kecil");
+        }
+        resizeAndEqualize(src, srcWidth, srcHeight);
+        for (int i = 0; i < 256; i++) {
+            lut[i] = equalized[i] * NORMALIZE_SCALE;
+        }
+        for (int i = 0; i < resized.length; i++) {
+            dst[offset + i] = lut[resized[i] & 0xFF];
+        }
+    }
+
+    /**
+     * Sama seperti process(byte[], int, int, float[], int), tetapi menulis ke FloatBuffer
+     * (misalnya view dari buffer input TFLite) mulai dari index. Posisi buffer ikut berubah.
+     */
+    public void process(byte[] src, int srcWidth, int srcHeight, FloatBuffer dst, int index) {
+        process(src, srcWidth, srcHeight, output, 0);
+        dst.position(index);
+        dst.put(output);
+    }
+
+    /**
+     * Varian untuk tensor input UINT8/INT8: setiap nilai hasil equalize v ditulis sebagai
+     * quantization[v] (lihat TFLiteClassifier.getInputQuantization()) ke dst mulai dari byte ke-index.
+     * Posisi buffer ikut berubah.
+     */
+    public void process(byte[] src, int srcWidth, int srcHeight, byte[] quantization, ByteBuffer dst, int index) {
+        if (quantization.length < 256) {
+            throw new IllegalArgumentException("Tabel kuantisasi harus berisi 256 entri");
+        }
+        resizeAndEqualize(src, srcWidth, srcHeight);
+        for (int i = 0; i < resized.length; i++) {
+            quantizedOutput[i] = quantization[equalized[resized[i] & 0xFF]];
+        }
+        dst.position(index);
+        dst.put(quantizedOutput);
+    }
+
+    private void resizeAndEqualize(byte[] src, int srcWidth, int srcHeight) {
+        if (srcWidth <= 0 || srcHeight <= 0 || src.length < srcWidth * srcHeight) {
+            throw new IllegalArgumentException("Crop " + srcWidth + "x" + srcHeight
+                    + " tidak sesuai dengan buffer " + src.length + " byte");
+        }
+        if (srcWidth % outputWidth == 0 && srcHeight % outputHeight == 0) {
+            resizeAreaInteger(src, srcWidth, srcWidth / outputWidth, srcHeight / outputHeight);
+        } else {
+            resizeArea(src, srcWidth, srcHeight);
+        }
+        buildEqualizeLut();
+    }
+
+    /**
+     * Rata-rata area yang dipisah per sumbu: baris sumber yang penuh dijumlahkan sebagai integer
+     * per kolom, baris tepi ditambahkan dengan bobotnya, lalu kolom-kolom itu digabung dengan
+     * cara yang sama. Setiap piksel crop hanya dibaca sekali kecuali baris tepi.
+     */
+    private void resizeArea(byte[] src, int srcWidth, int srcHeight) {
+        if (columns.sourceSize != srcWidth) {
+            columns.build(srcWidth);
+        }
+        if (rows.sourceSize != srcHeight) {
+            rows.build(srcHeight);
+        }
+        if (columnSums.length < srcWidth) {
+            columnSums = new int[srcWidth];
+            columnValues = new float[srcWidth];
+        }
+        int[] sums = columnSums;
+        float[] values = columnValues;
+
+        int out = 0;
+        for (int dy = 0; dy < outputHeight; dy++) {
+            Arrays.fill(sums, 0, srcWidth, 0);
+            for (int sy = rows.fullStart[dy]; sy < rows.fullEnd[dy]; sy++) {
+                int rowStart = sy * srcWidth;
+                for (int x = 0; x < srcWidth; x++) {
+                    sums[x] += src[rowStart + x] & 0xFF;
+                }
+            }
+            int firstRow = rows.first[dy] * srcWidth;
+            int lastRow = rows.last[dy] * srcWidth;
+            float firstWeight = rows.firstWeight[dy];
+            float lastWeight = rows.lastWeight[dy];
+            for (int x = 0; x < srcWidth; x++) {
+                values[x] = sums[x] + firstWeight * (src[firstRow + x] & 0xFF)
+                        + lastWeight * (src[lastRow + x] & 0xFF);
+            }
+
+            float rowScale = rows.inverseCell[dy];
+            for (int dx = 0; dx < outputWidth; dx++) {
+                float sum = columns.firstWeight[dx] * values[columns.first[dx]]
+                        + columns.lastWeight[dx] * values[columns.last[dx]];
+                for (int x = columns.fullStart[dx]; x < columns.fullEnd[dx]; x++) {
+                    sum += values[x];
+                }
+                resized[out++] = (byte) saturate(sum * rowScale * columns.inverseCell[dx]);
+            }
+        }
+    }
+
+    // Skala bulat mengikuti jalur resizeAreaFast OpenCV: jumlah integer, 2x2 dibulatkan dengan (sum + 2) >> 2
+    private void resizeAreaInteger(byte[] src, int srcWidth, int scaleX, int scaleY) {
+        int area = scaleX * scaleY;
+        float inverseArea = 1f / area;
+        int out = 0;
+        for (int y = 0; y < outputHeight; y++) {
+            int rowStart = y * scaleY * srcWidth;
+            for (int x = 0; x < outputWidth; x++) {
+                int cellStart = rowStart + x * scaleX;
+                int sum = 0;
+                for (int dy = 0; dy < scaleY; dy++) {
+                    int index = cellStart + dy * srcWidth;
+                    for (int dx = 0; dx < scaleX; dx++) {
+                        sum += src[index + dx] & 0xFF;
+                    }
+                }
+                resized[out++] = (byte) (area == 4 ? (sum + 2) >> 2 : saturate(sum * inverseArea));
+            }
+        }
+    }
+
+    /** Sama dengan cv::equalizeHist; hanya level yang muncul di hasil resize yang diisi. */
+    private void buildEqualizeLut() {
+        Arrays.fill(histogram, 0);
+        for (byte value : resized) {
+            histogram[value & 0xFF]++;
+        }
+        int first = 0;
+        while (histogram[first] == 0) {
+            first++;
+        }
+        if (histogram[first] == resized.length) {
+            // Gambar rata: OpenCV mengisi hasilnya dengan nilai itu sendiri
+            equalized[first] = first;
+            return;
+        }
+        float scale = 255f / (resized.length - histogram[first]);
+        int sum = 0;
+        equalized[first] = 0;
+        for (int i = first + 1; i < 256; i++) {
+            sum += histogram[i];
+            equalized[i] = saturate(sum * scale);
+        }
+    }
+
+    // saturate_cast<uchar>(float): pembulatan ke genap terdekat lalu dibatasi ke 0..255
+    private static int saturate(float value) {
+        int rounded = (int) Math.rint(value);
+        return rounded < 0 ? 0 : Math.min(rounded, 255);
+    }
+}
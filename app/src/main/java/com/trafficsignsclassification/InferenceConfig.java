@@ -0,0 +1,85 @@
+package com.trafficsignsclassification;
+
+import org.tensorflow.lite.Interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Satu kombinasi opsi Interpreter TFLite (jumlah thread, XNNPACK, NNAPI, FP16).
+ * Bisa disimpan sebagai string agar pilihan hasil benchmark tidak perlu diulang.
+ */
+public final class InferenceConfig {
+
+    // -1 = jumlah thread dipilih runtime TFLite
+    public final int numThreads;
+    public final boolean useXnnpack;
+    public final boolean useNnapi;
+    public final boolean allowFp16;
+
+    public InferenceConfig(int numThreads, boolean useXnnpack, boolean useNnapi, boolean allowFp16) {
+        this.numThreads = numThreads;
+        this.useXnnpack = useXnnpack;
+        this.useNnapi = useNnapi;
+        this.allowFp16 = allowFp16;
+    }
+
+    /**
+     * Konfigurasi bawaan Interpreter, sama seperti sebelum ada pemilihan otomatis:
+     * new Interpreter.Options() dengan numThreads -1 (dipilih runtime) dan XNNPACK aktif.
+     */
+    public static InferenceConfig defaults() {
+        return new InferenceConfig(-1, true, false, false);
+    }
+
+    /** Daftar kandidat yang dicoba saat benchmark awal, disesuaikan dengan jumlah core. */
+    public static List<InferenceConfig> candidates(int availableCores) {
+        List<InferenceConfig> list = new ArrayList<>();
+        list.add(defaults());
+        list.add(new InferenceConfig(1, true, false, false));
+        list.add(new InferenceConfig(1, false, false, false));
+        int maxThreads = Math.min(4, availableCores);
+        for (int threads = 2; threads <= maxThreads; threads *= 2) {
+            list.add(new InferenceConfig(threads, true, false, false));
+            list.add(new InferenceConfig(threads, true, false, true));
+        }
+        list.add(new InferenceConfig(1, false, true, false));
+        list.add(new InferenceConfig(1, false, true, true));
+        return list;
+    }
+
+    public Interpreter.Options toOptions() {
+        Interpreter.Options options = new Interpreter.Options();
+        options.setNumThreads(numThreads);
+        options.setUseXNNPACK(useXnnpack);
+        options.setUseNNAPI(useNnapi);
+        options.setAllowFp16PrecisionForFp32(allowFp16);
+        return options;
+    }
+
+    /** Format: "threads,xnnpack,nnapi,fp16", contoh "2,1,0,0". */
+    public String encode() {
+        return numThreads + "," + (useXnnpack ? 1 : 0) + "," + (useNnapi ? 1 : 0) + "," + (allowFp16 ? 1 : 0);
+    }
+
+    /** Kebalikan dari encode(); mengembalikan null jika string tidak valid. */
+    public static InferenceConfig decode(String value) {
+        if (value == null) return null;
+        String[] parts = value.split(",");
+        if (parts.length != 4) return null;
+        try {
+            return new InferenceConfig(Integer.parseInt(parts[0]),
+                    "1".equals(parts[1]), "1".equals(parts[2]), "1".equals(parts[3]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "threads=" + (numThreads < 0 ? "auto" : numThreads)
+                + (useXnnpack ? " xnnpack" : "")
+                + (useNnapi ? " nnapi" : "")
+                + (allowFp16 ? " fp16" : "");
+    }
+}
@@ -0,0 +1,161 @@
+package com.trafficsignsclassification;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Mesin inferensi yang memilih konfigurasi Interpreter tercepat untuk perangkat ini.
+ * Saat pertama kali dijalankan, setiap kandidat InferenceConfig di-benchmark dengan beberapa
+ * inferensi pemanasan lalu inferensi terukur; pemenangnya disimpan di SharedPreferences
+ * sehingga peluncuran berikutnya langsung memakai konfigurasi tersebut.
+ */
+public class InferenceEngine implements Closeable {
+
+    private static final String TAG = "InferenceEngine";
+    private static final String PREFS_NAME = "inference_engine";
+    private static final String KEY_CONFIG = "config";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+    private static final int WARMUP_RUNS = 5;
+    private static final int TIMED_RUNS = 20;
+
+    private final TFLiteClassifier classifier;
+    private final InferenceConfig config;
+    // Model gerbang ModelCascade, null jika tidak dimuat
+    private TFLiteClassifier gate;
+
+    private InferenceEngine(TFLiteClassifier classifier, InferenceConfig config) {
+        this.classifier = classifier;
+        this.config = config;
+    }
+
+    /** Membuat engine dengan konfigurasi dan ukuran batch maksimum tertentu tanpa benchmark. */
+    public static InferenceEngine create(ByteBuffer model, InferenceConfig config, int maxBatchSize) {
+        return new InferenceEngine(new TFLiteClassifier(model, config.toOptions(), maxBatchSize), config);
+    }
+
+    /**
+     * Membuat engine dengan konfigurasi tersimpan, atau menjalankan benchmark jika belum ada
+     * (atau jika perangkat/model berubah sejak benchmark terakhir).
+     */
+    public static InferenceEngine createBest(Context context, ByteBuffer model, int maxBatchSize) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String fingerprint = Build.FINGERPRINT + "/" + model.capacity() + "/" + maxBatchSize;
+
+        if (fingerprint.equals(prefs.getString(KEY_FINGERPRINT, null))) {
+            InferenceConfig saved = InferenceConfig.decode(prefs.getString(KEY_CONFIG, null));
+            if (saved != null) {
+                try {
+                    Log.d(TAG, "Memakai konfigurasi tersimpan: " + saved);
+                    return create(model, saved, maxBatchSize);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Konfigurasi tersimpan gagal dipakai, benchmark ulang", e);
+                }
+            }
+        }
+
+        InferenceEngine best = benchmark(model,
+                InferenceConfig.candidates(Runtime.getRuntime().availableProcessors()), maxBatchSize);
+        prefs.edit()
+                .putString(KEY_FINGERPRINT, fingerprint)
+                .putString(KEY_CONFIG, best.config.encode())
+                .apply();
+        return best;
+    }
+
+    /** Menjalankan setiap kandidat dan mengembalikan engine dengan waktu rata-rata terkecil. */
+    static InferenceEngine benchmark(ByteBuffer model, List<InferenceConfig> candidates, int maxBatchSize) {
+        InferenceEngine best = null;
+        long bestNanos = Long.MAX_VALUE;
+
+        for (InferenceConfig candidate : candidates) {
+            InferenceEngine engine;
+            try {
+                engine = create(model, candidate, maxBatchSize);
+            } catch (RuntimeException e) {
+                // Misalnya NNAPI tidak tersedia di perangkat ini
+                Log.w(TAG, "Kandidat tidak didukung: " + candidate, e);
+                continue;
+            }
+
+            long nanos = engine.measure(WARMUP_RUNS, TIMED_RUNS);
+            Log.d(TAG, "Benchmark " + candidate + ": " + (nanos / 1000) + " us/inferensi");
+            if (nanos < bestNanos) {
+                if (best != null) best.close();
+                best = engine;
+                bestNanos = nanos;
+            } else {
+                engine.close();
+            }
+        }
+
+        if (best == null) {
+            return create(model, InferenceConfig.defaults(), maxBatchSize);
+        }
+        Log.d(TAG, "Konfigurasi terpilih: " + best.config);
+        return best;
+    }
+
+    /**
+     * Rata-rata waktu satu inferensi (ns) setelah sejumlah inferensi pemanasan. Diukur dengan batch
+     * 1 karena pipeline paling sering menjalankan satu crop per frame; dengan batch maksimum,
+     * delegate yang punya overhead tetap per panggilan akan terlihat lebih cepat dari aslinya.
+     */
+    long measure(int warmupRuns, int timedRuns) {
+        for (int i = 0; i < warmupRuns; i++) {
+            classifier.run(1);
+        }
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < timedRuns; i++) {
+            classifier.run(1);
+        }
+        return (SystemClock.elapsedRealtimeNanos() - start) / timedRuns;
+    }
+
+    /**
+     * Memuat model gerbang ModelCascade dengan konfigurasi Interpreter dan batch maksimum yang sama
+     * seperti classifier. Panggil saat inisialisasi saja.
+     *
+     * @throws IllegalArgumentException jika input model gerbang berbeda dari classifier
+     */
+    public void loadGate(ByteBuffer model) {
+        TFLiteClassifier newGate = new TFLiteClassifier(model, config.toOptions(), classifier.getMaxBatchSize());
+        try {
+            ModelCascade.checkGate(classifier, newGate);
+        } catch (IllegalArgumentException e) {
+            newGate.close();
+            throw e;
+        }
+        if (gate != null) {
+            gate.close();
+        }
+        gate = newGate;
+    }
+
+    /** @return model gerbang, atau null jika tidak dimuat */
+    public TFLiteClassifier getGate() {
+        return gate;
+    }
+
+    public TFLiteClassifier getClassifier() {
+        return classifier;
+    }
+
+    public InferenceConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public void close() {
+        classifier.close();
+        if (gate != null) {
+            gate.close();
+        }
+    }
+}
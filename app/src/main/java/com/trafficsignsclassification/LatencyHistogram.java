@@ -0,0 +1,88 @@
+package com.trafficsignsclassification;
+
+import java.util.Arrays;
+
+/**
+ * Histogram latensi dengan bucket tetap ala HdrHistogram: nilai 0..63 us disimpan persis,
+ * di atasnya setiap pangkat dua dibagi 32 sub-bucket (presisi sekitar 3%). Semua bucket
+ * dialokasikan di konstruktor sehingga record() tidak pernah mengalokasikan memori.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Bit tertinggi 6..62 masing-masing punya 32 sub-bucket
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (63 - 6) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long totalMicros;
+    private long maxMicros;
+
+    /** Mencatat satu sampel latensi dalam mikrodetik. */
+    public void record(long micros) {
+        if (micros < 0) micros = 0;
+        counts[indexOf(micros)]++;
+        totalCount++;
+        totalMicros += micros;
+        if (micros > maxMicros) maxMicros = micros;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public double getMeanMicros() {
+        return totalCount == 0 ? 0 : (double) totalMicros / totalCount;
+    }
+
+    /**
+     * Nilai persentil (0..100) dalam mikrodetik, dibulatkan ke batas atas bucket-nya.
+     */
+    public long percentile(double percentile) {
+        if (totalCount == 0) return 0;
+        long target = (long) Math.ceil(percentile / 100.0 * totalCount);
+        if (target < 1) target = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        totalMicros = 0;
+        maxMicros = 0;
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS;
+        int top = (int) (value >>> shift); // SUB_BUCKETS..2*SUB_BUCKETS-1
+        return LINEAR_BUCKETS + (msb - 6) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int k = index - LINEAR_BUCKETS;
+        int msb = k / SUB_BUCKETS + 6;
+        int shift = msb - SUB_BUCKET_BITS;
+        long top = k % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -3,16 +3,11 @@ package com.trafficsignsclassification;
 import android.Manifest;
 import android.annotation.SuppressLint;
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
-import android.content.res.AssetFileDescriptor;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Color;
-import android.graphics.ImageFormat;
-import android.graphics.Matrix;
-import android.graphics.Rect;
-import android.graphics.YuvImage;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
@@ -44,35 +39,77 @@ import androidx.core.content.ContextCompat;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
-import org.opencv.android.OpenCVLoader;
-import org.opencv.android.Utils;
-import org.opencv.core.CvType;
-import org.opencv.core.Mat;
-import org.opencv.imgproc.Imgproc;
-import org.tensorflow.lite.Interpreter;
+import org.opencv.core.MatStats;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.ByteBuffer;
-import java.nio.MappedByteBuffer;
-import java.nio.channels.FileChannel;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class MainActivity extends AppCompatActivity {
 
     private static final int CAMERA_REQUEST_CODE = 101;
     private static final String TAG = "MainActivity";
     private static final float THRESHOLD = 0.7f;
+    private static final String LATENCY_REPORT_FILE = "latency_report.txt";
+    // Hanya untuk mencari kebocoran Mat: menghitung Mat native beserta lokasi alokasinya (stack trace
+    // dan lock global per Mat) di build debug. Membuat angka laporan latensi lebih lambat, jadi mati
+    // secara default
+    private static final boolean TRACK_MAT_ALLOCATIONS = false;
+
+    // Penghalusan prediksi antar frame
+    private static final int SMOOTHING_WINDOW = 5;
+    private static final int SMOOTHING_MIN_VOTES = 3;
+    private static final float SMOOTHING_EMA_ALPHA = 0.4f;
+    private static final int STABLE_FRAMES_TO_THROTTLE = 10;
+    private static final int THROTTLED_INTERVAL = 3;
+
+    // Deteksi perubahan adegan untuk melewati frame yang isinya sama
+    private static final int SCENE_GRID_WIDTH = 32;
+    private static final int SCENE_GRID_HEIGHT = 24;
+    private static final int SCENE_CHANGE_THRESHOLD = 6;
+    private static final long MAX_INFERENCE_INTERVAL_NS = 500_000_000L;
+
+    // Kandidat lokasi rambu per frame (selain crop tengah) dan luas minimumnya dalam piksel chroma
+    private static final int MAX_PROPOSALS = 3;
+    private static final int MIN_PROPOSAL_AREA = 100;
+    // Crop tengah ditambah semua kandidat dalam satu batch inferensi
+    static final int MAX_BATCH_SIZE = MAX_PROPOSALS + 1;
+
+    // Pelacakan rambu antar frame
+    private static final int DETECTION_INTERVAL = 5;
+    private static final int RECLASSIFY_INTERVAL = 5;
+    private static final float MIN_TRACKING_CONFIDENCE = 0.5f;
+    private static final int MAX_MISSED_FRAMES = 3;
+
+    // Jumlah frame yang boleh berada di pipeline preprocess/inferensi sekaligus
+    private static final int PIPELINE_DEPTH = 3;
+    // Preprocess dengan kernel Java satu lintasan (resize area, equalize 32x32, normalisasi)
+    // alih-alih equalizeHist crop penuh + resize + convertTo OpenCV. Nonaktif karena model dilatih
+    // dengan urutan OpenCV dan kernel ini memberi input yang berbeda; nyalakan hanya setelah model
+    // divalidasi ulang (lihat FusedKernelEquivalenceTest di modul benchmark)
+    static final boolean FUSED_PREPROCESSING = false;
+    // Preprocess crop langsung dari Y plane dalam satu panggilan JNI (library frame_preprocess),
+    // dengan urutan yang sama seperti FUSED_PREPROCESSING; jatuh ke jalur Java jika tidak tersedia
+    private static final boolean NATIVE_PREPROCESSING = true;
+
+    // Kaskade model (aktif jika assets berisi sign_gate.tflite): crop dengan peluang rambu dari
+    // model gerbang di bawah ambang tolak tidak diklasifikasi; di antara kedua ambang dihitung ragu
+    private static final float GATE_REJECT_THRESHOLD = 0.2f;
+    private static final float GATE_FIRE_THRESHOLD = 0.6f;
+
+    // Cache hasil klasifikasi dengan kunci hash perseptual crop 32x32 (0 = nonaktif): crop yang
+    // hash-nya berbeda paling banyak RESULT_CACHE_MAX_DISTANCE bit memakai hasil yang tersimpan.
+    // Jarak dibuat kecil karena rambu yang hanya beda angka (batas kecepatan 30 vs 50) sudah
+    // berbeda beberapa bit saja
+    private static final int RESULT_CACHE_SIZE = 16;
+    private static final int RESULT_CACHE_MAX_DISTANCE = 2;
+    private static final long RESULT_CACHE_TTL_NS = 1_000_000_000L;
 
     // ===================================================================
     // BARU: Class kecil untuk menyimpan data rambu secara terstruktur
@@ -90,13 +127,23 @@ public class MainActivity extends AppCompatActivity {
     private LinearLayout permissionLayout;
 
     // TFLite & Data
-    private Interpreter tflite;
+    private InferenceEngine inferenceEngine;
+    private TFLiteClassifier classifier;
+    private ModelCascade modelCascade;
     private List<String> labels;
     // ✅ PERUBAHAN: Tipe data Map diubah untuk menyimpan objek SignInfo
     private Map<String, SignInfo> signDataMap;
 
     // CameraX
     private ExecutorService cameraExecutor;
+    private ImageAnalysis imageAnalysis;
+    private FramePipeline framePipeline;
+    private SignProposer signProposer;
+    private SignTracker signTracker;
+    private final StageTimer stageTimer = new StageTimer();
+    private TemporalAggregator temporalAggregator;
+    private final FrameSkipScheduler frameSkipScheduler = new FrameSkipScheduler(
+            SCENE_GRID_WIDTH, SCENE_GRID_HEIGHT, SCENE_CHANGE_THRESHOLD, MAX_INFERENCE_INTERVAL_NS);
     private Camera camera;
     private boolean isFlashOn = false;
 
@@ -128,12 +175,38 @@ public class MainActivity extends AppCompatActivity {
         flashToggleButton.setOnClickListener(v -> toggleFlashlight());
         openSettingsButton.setOnClickListener(v -> openAppSettings());
 
-        loadLabels();
+        // Dilaporkan di dumpLatencyReport()
+        if (TRACK_MAT_ALLOCATIONS && (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            MatStats.enable(true);
+        }
+
+        // Biasanya sudah dimuat dan dipanaskan oleh SplashActivity; jika tidak, muat di sini secara sinkron
+        StartupLoader.Result startup = StartupLoader.take();
+        if (startup == null) {
+            startup = StartupLoader.load(this, MAX_BATCH_SIZE, false);
+        }
+        labels = startup.labels;
         loadSignData(); // ✅ PERUBAHAN: Memanggil method baru
-        loadTFLiteModel();
+        if (startup.engine != null) {
+            inferenceEngine = startup.engine;
+            classifier = inferenceEngine.getClassifier();
+            ClassificationCache resultCache = RESULT_CACHE_SIZE > 0
+                    ? new ClassificationCache(classifier, RESULT_CACHE_SIZE, RESULT_CACHE_MAX_DISTANCE,
+                            RESULT_CACHE_TTL_NS, ClassificationCache.Hash.DIFFERENCE)
+                    : null;
+            modelCascade = new ModelCascade(classifier, inferenceEngine.getGate(),
+                    GATE_REJECT_THRESHOLD, GATE_FIRE_THRESHOLD, resultCache);
+            temporalAggregator = createAggregator();
+        }
 
-        if (!OpenCVLoader.initDebug()) {
-            Log.e(TAG, "Gagal memuat OpenCV");
+        if (!startup.openCvLoaded) {
+            Log.e(TAG, "OpenCV tidak tersedia, pipeline frame dinonaktifkan");
+        } else if (classifier != null) {
+            framePipeline = new FramePipeline(modelCascade, PIPELINE_DEPTH, FUSED_PREPROCESSING, NATIVE_PREPROCESSING);
+            framePipeline.start();
+            signProposer = new SignProposer(MAX_PROPOSALS, MIN_PROPOSAL_AREA);
+            signTracker = new SignTracker(MAX_PROPOSALS, DETECTION_INTERVAL, RECLASSIFY_INTERVAL,
+                    MIN_TRACKING_CONFIDENCE, MAX_MISSED_FRAMES, this::createAggregator);
         }
 
         cameraExecutor = Executors.newSingleThreadExecutor();
@@ -163,7 +236,7 @@ public class MainActivity extends AppCompatActivity {
                 ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
                 Preview preview = new Preview.Builder().build();
                 preview.setSurfaceProvider(previewView.getSurfaceProvider());
-                ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
+                imageAnalysis = new ImageAnalysis.Builder()
                         .setTargetResolution(new Size(640, 480))
                         .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                         .build();
@@ -182,47 +255,134 @@ public class MainActivity extends AppCompatActivity {
     @SuppressLint("UnsafeOptInUsageError")
     private void processImage(ImageProxy imageProxy) {
         if (imageProxy == null || imageProxy.getImage() == null) { return; }
+        // Pipeline tidak dibuat jika OpenCV atau model gagal dimuat; frame tetap harus ditutup
+        if (framePipeline == null) {
+            imageProxy.close();
+            return;
+        }
+
+        // Tahap postprocess untuk frame sebelumnya yang sudah selesai diinferensi
+        framePipeline.drainCompleted(this::onFrameResult);
+
+        long timestamp = imageProxy.getImageInfo().getTimestamp();
+        // Lewati frame jika adegan hampir sama dengan frame terakhir yang diinferensi
+        if (!frameSkipScheduler.shouldRun(imageProxy)) {
+            stageTimer.skipFrame(timestamp);
+            imageProxy.close();
+            return;
+        }
+        // Backpressure: semua job masih di preprocess/inferensi, frame ini ditolak
+        FramePipeline.FrameJob job = framePipeline.obtain();
+        if (job == null) {
+            stageTimer.rejectFrame(timestamp);
+            imageProxy.close();
+            return;
+        }
+        frameSkipScheduler.markInferred(timestamp);
+        stageTimer.beginFrame(timestamp);
 
-        Bitmap bitmap = toBitmap(imageProxy);
-        if (bitmap == null) { imageProxy.close(); return; }
-
-        Matrix matrix = new Matrix();
-        matrix.postRotate(imageProxy.getImageInfo().getRotationDegrees());
-        Bitmap rotatedBitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
-
-        int frameWidth = rotatedBitmap.getWidth();
-        int frameHeight = rotatedBitmap.getHeight();
-        int cropSize = Math.min(frameWidth, frameHeight) / 2;
-        int x = (frameWidth - cropSize) / 2;
-        int y = (frameHeight - cropSize) / 2;
-        Bitmap croppedBitmap = Bitmap.createBitmap(rotatedBitmap, x, y, cropSize, cropSize);
-
-        Mat mat = new Mat();
-        Utils.bitmapToMat(croppedBitmap, mat);
-        Imgproc.cvtColor(mat, mat, Imgproc.COLOR_RGBA2GRAY);
-        Imgproc.equalizeHist(mat, mat);
-        Mat resizedMat = new Mat();
-        Imgproc.resize(mat, resizedMat, new org.opencv.core.Size(32, 32));
-        resizedMat.convertTo(resizedMat, CvType.CV_32F, 1.0 / 255);
-        float[][][][] input = new float[1][32][32][1];
-        for (int i = 0; i < 32; i++) {
-            for (int j = 0; j < 32; j++) {
-                input[0][i][j][0] = (float) resizedMat.get(i, j)[0];
+        // Geser track yang ada ke frame ini dengan optical flow + Kalman
+        boolean detect = signTracker.shouldDetect();
+        signTracker.update(imageProxy);
+        stageTimer.endStage(StageTimer.Stage.TRACK);
+
+        // Kandidat lokasi rambu dari warna (plane U/V), hanya sesekali atau saat belum ada track
+        if (detect) {
+            signTracker.onDetections(signProposer, signProposer.propose(imageProxy));
+        }
+        stageTimer.endStage(StageTimer.Stage.PROPOSE);
+
+        // Crop tengah (rambu putih/hitam tidak tertangkap proposal warna) hanya selama prediksinya
+        // belum stabil, ditambah track yang perlu diklasifikasi ulang. Semua dibaca dari Y plane
+        // ke buffer milik job (langsung ke buffer input jika preprocess native dipakai), lalu
+        // ImageProxy langsung ditutup.
+        job.classifyCenter = temporalAggregator.shouldRunInference();
+        if (job.classifyCenter) {
+            job.addCenterCrop(imageProxy);
+        }
+        for (int i = 0; i < signTracker.getTrackCount(); i++) {
+            SignTracker.Track track = signTracker.getTrack(i);
+            if (signTracker.needsClassification(track)) {
+                job.addRegion(imageProxy, track.getLeft(), track.getTop(), track.getSize());
+                signTracker.onClassificationQueued(track);
+                job.tracks[job.trackCount] = track;
+                job.trackIds[job.trackCount++] = track.getId();
             }
         }
-        float[][] output = new float[1][labels.size()];
-        tflite.run(input, output);
+        imageProxy.close();
+        stageTimer.endStage(StageTimer.Stage.CONVERT);
 
-        int classIndex = getMaxIndex(output[0]);
-        float probability = output[0][classIndex];
+        if (job.slots > 0) {
+            // Preprocess dan inferensi berjalan di thread pipeline; hasilnya diproses di onFrameResult()
+            framePipeline.submit(job);
+        } else {
+            framePipeline.recycle(job);
+            updateDetectedSign();
+            stageTimer.endFrame();
+        }
+    }
 
-        if (probability > THRESHOLD && classIndex != -1) {
-            latestDetectedSign = labels.get(classIndex);
+    // Dipanggil di thread analyzer (cameraExecutor) untuk setiap job yang selesai diinferensi
+    private void onFrameResult(FramePipeline.FrameJob job) {
+        long start = System.nanoTime();
+        if (!job.failed) {
+            int numClasses = classifier.getNumClasses();
+            int slot = 0;
+            if (job.classifyCenter) {
+                temporalAggregator.add(job.scores, slot++ * numClasses);
+            }
+            for (int i = 0; i < job.trackCount; i++, slot++) {
+                signTracker.onClassified(job.tracks[i], job.trackIds[i], job.scores, slot * numClasses);
+            }
+            stageTimer.record(StageTimer.Stage.PREPROCESS, job.preprocessNanos);
+            stageTimer.record(StageTimer.Stage.INFERENCE, job.inferenceNanos);
         } else {
-            latestDetectedSign = "N/A";
+            // Tanpa ini track tetap menunggu hasil dan tidak pernah diklasifikasi ulang
+            for (int i = 0; i < job.trackCount; i++) {
+                signTracker.onClassificationFailed(job.tracks[i], job.trackIds[i]);
+            }
         }
+        updateDetectedSign();
+        long end = System.nanoTime();
+        stageTimer.record(StageTimer.Stage.POSTPROCESS, end - start);
+        // Latensi total = dari frame diterima sampai hasilnya diproses, termasuk waktu antre
+        stageTimer.record(StageTimer.Stage.TOTAL, end - job.startNanos);
+    }
 
-        imageProxy.close();
+    // Tampilkan hasil teragregasi paling yakin dari crop tengah dan semua track
+    private void updateDetectedSign() {
+        TemporalAggregator best = temporalAggregator;
+        for (int i = 0; i < signTracker.getTrackCount(); i++) {
+            TemporalAggregator aggregator = signTracker.getTrack(i).getAggregator();
+            if (aggregator.getClassIndex() != TemporalAggregator.NONE
+                    && (best.getClassIndex() == TemporalAggregator.NONE || aggregator.getConfidence() > best.getConfidence())) {
+                best = aggregator;
+            }
+        }
+        int classIndex = best.getClassIndex();
+        latestDetectedSign = classIndex != TemporalAggregator.NONE ? labels.get(classIndex) : "N/A";
+    }
+
+    // Dijalankan di cameraExecutor supaya tidak balapan dengan analyzer dan tidak menulis file di UI thread
+    private void dumpLatencyReport() {
+        if (stageTimer.getFrameCount() == 0) return;
+        File dir = getExternalFilesDir(null);
+        File file = new File(dir != null ? dir : getFilesDir(), LATENCY_REPORT_FILE);
+        String header = Build.MANUFACTURER + " " + Build.MODEL + " (API " + Build.VERSION.SDK_INT + "), "
+                + (inferenceEngine != null ? inferenceEngine.getConfig() : "-")
+                + (MatStats.isEnabled() ? ", MatStats aktif (latensi tidak representatif)" : "");
+        Log.i(TAG, "Latensi per tahap (us):\n" + stageTimer.report());
+        if (modelCascade != null) {
+            Log.i(TAG, "Kaskade model: " + modelCascade.report());
+        }
+        if (MatStats.isEnabled()) {
+            Log.i(TAG, "Memori native Mat:\n" + MatStats.dump());
+        }
+        try {
+            stageTimer.writeReport(file, header);
+        } catch (IOException e) {
+            Log.e(TAG, "Gagal menulis laporan latensi", e);
+        }
     }
 
     // ✅ PERUBAHAN: Logika update UI untuk mengambil nama dan penjelasan dari SignInfo
@@ -282,14 +442,41 @@ public class MainActivity extends AppCompatActivity {
     protected void onPause() {
         super.onPause();
         uiUpdateHandler.removeCallbacks(uiUpdateRunnable);
+        cameraExecutor.execute(this::dumpLatencyReport);
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        // Mat milik proposer, tracker dan pipeline dipakai processImage; tunggu analyzer berhenti
+        // sebelum close() membebaskan memori native-nya
+        if (imageAnalysis != null) {
+            imageAnalysis.clearAnalyzer();
+        }
         cameraExecutor.shutdown();
-        if (tflite != null) {
-            tflite.close();
+        boolean analyzerStopped = false;
+        try {
+            analyzerStopped = cameraExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean pipelineStopped = framePipeline == null || framePipeline.shutdown();
+        if (!analyzerStopped) {
+            // Jangan membebaskan Mat yang mungkin masih dipakai; biarkan dibersihkan GC
+            Log.w(TAG, "Analyzer belum berhenti, Mat native tidak dilepas");
+        } else {
+            if (signProposer != null) {
+                signProposer.release();
+            }
+            if (signTracker != null) {
+                signTracker.release();
+            }
+        }
+        if (!pipelineStopped) {
+            // Thread inferensi mungkin masih di dalam Interpreter.run; menutupnya sekarang berarti use-after-free
+            Log.w(TAG, "Pipeline belum berhenti, interpreter tidak ditutup");
+        } else if (inferenceEngine != null) {
+            inferenceEngine.close();
         }
     }
 
@@ -538,67 +725,11 @@ public class MainActivity extends AppCompatActivity {
     }
 
     // --- Sisa method helper (tidak berubah) ---
-    private Bitmap toBitmap(ImageProxy image) {
-        ImageProxy.PlaneProxy[] planes = image.getPlanes();
-        ByteBuffer yBuffer = planes[0].getBuffer();
-        ByteBuffer uBuffer = planes[1].getBuffer();
-        ByteBuffer vBuffer = planes[2].getBuffer();
-        int ySize = yBuffer.remaining();
-        int uSize = uBuffer.remaining();
-        int vSize = vBuffer.remaining();
-        byte[] nv21 = new byte[ySize + uSize + vSize];
-        yBuffer.get(nv21, 0, ySize);
-        vBuffer.get(nv21, ySize, vSize);
-        uBuffer.get(nv21, ySize + vSize, uSize);
-        YuvImage yuvImage = new YuvImage(nv21, ImageFormat.NV21, image.getWidth(), image.getHeight(), null);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        yuvImage.compressToJpeg(new Rect(0, 0, yuvImage.getWidth(), yuvImage.getHeight()), 100, out);
-        byte[] imageBytes = out.toByteArray();
-        return BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
-    }
-
-    private void loadTFLiteModel() {
-        try {
-            tflite = new Interpreter(loadModelFile());
-            Log.d(TAG, "Model TFLite berhasil dimuat.");
-        } catch (IOException e) {
-            Log.e(TAG, "Error memuat model TFLite", e);
-        }
-    }
-
-    private MappedByteBuffer loadModelFile() throws IOException {
-        try (AssetFileDescriptor fileDescriptor = getAssets().openFd("model_trained.tflite");
-             FileInputStream inputStream = new FileInputStream(fileDescriptor.getFileDescriptor())) {
-            FileChannel fileChannel = inputStream.getChannel();
-            long startOffset = fileDescriptor.getStartOffset();
-            long declaredLength = fileDescriptor.getDeclaredLength();
-            return fileChannel.map(FileChannel.MapMode.READ_ONLY, startOffset, declaredLength);
-        }
-    }
-
-    private void loadLabels() {
-        labels = new ArrayList<>();
-        try (InputStream inputStream = getAssets().open("labels.txt");
-             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                labels.add(line);
-            }
-            Log.d(TAG, "Labels berhasil dimuat: " + labels.size() + " label.");
-        } catch (IOException e) {
-            Log.e(TAG, "Error memuat labels.txt", e);
-        }
-    }
-
-    private int getMaxIndex(float[] array) {
-        if (array == null || array.length == 0) return -1;
-        int maxIndex = 0;
-        for (int i = 1; i < array.length; i++) {
-            if (array[i] > array[maxIndex]) {
-                maxIndex = i;
-            }
-        }
-        return maxIndex;
+    // Dipakai untuk crop tengah dan untuk setiap track baru di SignTracker
+    private TemporalAggregator createAggregator() {
+        return new TemporalAggregator(TemporalAggregator.Mode.EMA,
+                classifier.getNumClasses(), THRESHOLD, SMOOTHING_WINDOW, SMOOTHING_MIN_VOTES,
+                SMOOTHING_EMA_ALPHA, STABLE_FRAMES_TO_THROTTLE, THROTTLED_INTERVAL);
     }
 
     private void hideCameraViews() {
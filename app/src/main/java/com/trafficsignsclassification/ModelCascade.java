@@ -0,0 +1,256 @@
+package com.trafficsignsclassification;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Kaskade dua tingkat di depan classifier utama. Model gerbang kecil (sign_gate.tflite, input
+ * sama dengan classifier) menilai dulu apakah sebuah crop berisi rambu; classifier 43 kelas hanya
+ * dijalankan untuk crop yang peluang rambunya minimal rejectThreshold. Crop yang ditolak mendapat
+ * skor nol untuk semua kelas, jadi aggregator memperlakukannya sama seperti crop tanpa rambu.
+ *
+ * Peluang di antara rejectThreshold dan fireThreshold dihitung sebagai ragu. Crop seperti itu
+ * tetap diklasifikasi, tetapi dipisah di penghitung supaya kedua ambang bisa disetel dari data
+ * lapangan.
+ *
+ * Gerbang membaca buffer input yang sama dengan classifier (tanpa salinan). Sampel yang lolos
+ * dipindah ke depan buffer, sehingga classifier cukup menjalankan satu batch seukuran jumlah yang
+ * lolos. Tanpa model gerbang, run() langsung meneruskan ke classifier.
+ *
+ * Di depan kedua model bisa dipasang ClassificationCache: crop yang hash perseptualnya dekat
+ * dengan hasil yang baru disimpan langsung memakai skor itu tanpa menjalankan model apa pun.
+ * Sampel yang miss dipadatkan ke depan buffer dengan cara yang sama seperti di gerbang.
+ */
+public class ModelCascade {
+
+    private final TFLiteClassifier classifier;
+    // Null jika model gerbang tidak ada
+    private final TFLiteClassifier gate;
+    // Null jika cache hasil tidak dipakai
+    private final ClassificationCache cache;
+    private final float rejectThreshold;
+    private final float fireThreshold;
+    private final int numClasses;
+    private final int bytesPerSample;
+    private final boolean[] passed;
+    private final boolean[] cached;
+    private final long[] missHashes;
+    private final float[] missScores;
+    private final byte[] sample;
+
+    // Hanya ditulis thread inferensi; volatile supaya bisa dibaca untuk laporan dari thread lain
+    private volatile long gateRuns;
+    private volatile long classifierRuns;
+    private volatile long fired;
+    private volatile long uncertain;
+    private volatile long rejected;
+    private volatile long classified;
+
+    /**
+     * @param gate model gerbang dengan output [batch, 1] (sigmoid) atau [batch, 2] (softmax,
+     *             indeks 1 = ada rambu), atau null untuk menonaktifkan kaskade
+     * @param rejectThreshold crop dengan peluang rambu di bawah ini tidak diklasifikasi
+     * @param fireThreshold crop dengan peluang rambu minimal ini dihitung sebagai gerbang menyala
+     * @param cache cache hasil di depan kedua model, atau null
+     */
+    public ModelCascade(TFLiteClassifier classifier, TFLiteClassifier gate,
+                        float rejectThreshold, float fireThreshold, ClassificationCache cache) {
+        if (rejectThreshold < 0f || rejectThreshold > fireThreshold || fireThreshold > 1f) {
+            throw new IllegalArgumentException("Ambang harus 0 <= tolak <= menyala <= 1");
+        }
+        if (gate != null) {
+            checkGate(classifier, gate);
+        }
+        this.classifier = classifier;
+        this.gate = gate;
+        this.rejectThreshold = rejectThreshold;
+        this.fireThreshold = fireThreshold;
+        this.cache = cache;
+        numClasses = classifier.getNumClasses();
+        bytesPerSample = classifier.getInputBytesPerSample();
+        int maxBatchSize = classifier.getMaxBatchSize();
+        passed = new boolean[maxBatchSize];
+        cached = new boolean[maxBatchSize];
+        missHashes = cache != null ? new long[maxBatchSize] : null;
+        missScores = cache != null ? new float[maxBatchSize * numClasses] : null;
+        sample = gate != null || cache != null ? new byte[bytesPerSample] : null;
+    }
+
+    /** Memastikan model gerbang bisa membaca buffer input classifier apa adanya. */
+    static void checkGate(TFLiteClassifier classifier, TFLiteClassifier gate) {
+        if (gate.getInputWidth() != classifier.getInputWidth()
+                || gate.getInputHeight() != classifier.getInputHeight()
+                || gate.getInputBytesPerSample() != classifier.getInputBytesPerSample()
+                || !Arrays.equals(gate.getInputQuantization(), classifier.getInputQuantization())) {
+            throw new IllegalArgumentException("Input model gerbang harus sama dengan input classifier");
+        }
+        if (gate.getNumClasses() > 2) {
+            throw new IllegalArgumentException("Model gerbang harus punya 1 atau 2 output, bukan " + gate.getNumClasses());
+        }
+        if (gate.getMaxBatchSize() < classifier.getMaxBatchSize()) {
+            throw new IllegalArgumentException("Batch model gerbang lebih kecil dari batch classifier");
+        }
+    }
+
+    /** Panggil untuk setiap buffer dari classifier.newInputBuffer() sebelum dipakai dengan run(). */
+    public void registerInputBuffer(ByteBuffer buffer) {
+        if (gate != null) {
+            gate.registerInputBuffer(buffer);
+        }
+    }
+
+    /**
+     * Mengisi scores mulai indeks 0 dengan skor count sampel pertama di buffer (sampel i mulai di
+     * i * getNumClasses()). Isi buffer bisa berubah karena sampel yang perlu dijalankan dipindah ke depan.
+     * Hanya boleh dipanggil dari satu thread.
+     */
+    public void run(ByteBuffer buffer, int count, float[] scores) {
+        if (cache == null) {
+            classify(buffer, count, scores);
+            return;
+        }
+
+        long now = System.nanoTime();
+        int missCount = 0;
+        for (int i = 0; i < count; i++) {
+            long hash = cache.hash(buffer, i);
+            cached[i] = cache.lookup(hash, now, scores, i * numClasses);
+            if (cached[i]) {
+                continue;
+            }
+            missHashes[missCount] = hash;
+            if (missCount != i) {
+                moveSample(buffer, i, missCount);
+            }
+            missCount++;
+        }
+        if (missCount == 0) {
+            return;
+        }
+        classify(buffer, missCount, missScores);
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            if (!cached[i]) {
+                System.arraycopy(missScores, next * numClasses, scores, i * numClasses, numClasses);
+                cache.put(missHashes[next], now, missScores, next * numClasses);
+                next++;
+            }
+        }
+    }
+
+    // Gerbang lalu classifier untuk count sampel pertama di buffer
+    private void classify(ByteBuffer buffer, int count, float[] scores) {
+        if (gate == null) {
+            float[] output = classifier.run(buffer, count);
+            System.arraycopy(output, 0, scores, 0, count * numClasses);
+            classifierRuns++;
+            classified += count;
+            return;
+        }
+
+        float[] gateOutput = gate.run(buffer, count);
+        gateRuns++;
+        int gateClasses = gate.getNumClasses();
+        int passCount = 0;
+        for (int i = 0; i < count; i++) {
+            // Output terakhir = peluang ada rambu, untuk sigmoid maupun softmax dua kelas
+            float probability = gateOutput[i * gateClasses + gateClasses - 1];
+            passed[i] = probability >= rejectThreshold;
+            if (!passed[i]) {
+                rejected++;
+                continue;
+            }
+            if (probability >= fireThreshold) {
+                fired++;
+            } else {
+                uncertain++;
+            }
+            if (passCount != i) {
+                moveSample(buffer, i, passCount);
+            }
+            passCount++;
+        }
+
+        float[] output = null;
+        if (passCount > 0) {
+            output = classifier.run(buffer, passCount);
+            classifierRuns++;
+            classified += passCount;
+        }
+        // Kembalikan skor ke slot asalnya; slot yang ditolak diisi nol
+        int next = 0;
+        for (int i = 0; i < count; i++) {
+            int offset = i * numClasses;
+            if (passed[i]) {
+                System.arraycopy(output, next++ * numClasses, scores, offset, numClasses);
+            } else {
+                Arrays.fill(scores, offset, offset + numClasses, 0f);
+            }
+        }
+    }
+
+    // from > to, jadi sampel yang belum dibaca tidak pernah tertimpa
+    private void moveSample(ByteBuffer buffer, int from, int to) {
+        buffer.position(from * bytesPerSample);
+        buffer.get(sample);
+        buffer.position(to * bytesPerSample);
+        buffer.put(sample);
+        buffer.rewind();
+    }
+
+    public TFLiteClassifier getClassifier() {
+        return classifier;
+    }
+
+    public boolean hasGate() {
+        return gate != null;
+    }
+
+    /** @return cache hasil, atau null jika tidak dipakai */
+    public ClassificationCache getCache() {
+        return cache;
+    }
+
+    /** Jumlah pemanggilan model gerbang (satu per frame). */
+    public long getGateRuns() {
+        return gateRuns;
+    }
+
+    /** Jumlah pemanggilan classifier utama. */
+    public long getClassifierRuns() {
+        return classifierRuns;
+    }
+
+    /** Crop dengan peluang rambu minimal fireThreshold. */
+    public long getFired() {
+        return fired;
+    }
+
+    /** Crop dengan peluang rambu di antara kedua ambang; tetap diklasifikasi. */
+    public long getUncertain() {
+        return uncertain;
+    }
+
+    /** Crop yang tidak diklasifikasi karena peluang rambunya di bawah rejectThreshold. */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /** Jumlah crop yang diklasifikasi classifier utama. */
+    public long getClassified() {
+        return classified;
+    }
+
+    /** Ringkasan penghitung untuk log. */
+    public String report() {
+        String models;
+        if (gate == null) {
+            models = "tanpa gerbang: classifier " + classifierRuns + "x, " + classified + " crop";
+        } else {
+            long gated = fired + uncertain + rejected;
+            models = "gerbang " + gateRuns + "x, " + gated + " crop (menyala " + fired + ", ragu " + uncertain
+                    + ", ditolak " + rejected + "); classifier " + classifierRuns + "x, " + classified + " crop";
+        }
+        return cache != null ? cache.report() + "; " + models : models;
+    }
+}
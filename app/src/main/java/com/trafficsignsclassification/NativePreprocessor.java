@@ -0,0 +1,93 @@
+package com.trafficsignsclassification;
+
+import android.util.Log;
+
+import androidx.camera.core.ImageProxy;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Preprocessing langsung dari Y plane ImageProxy ke buffer input TFLite dalam satu panggilan JNI
+ * (library frame_preprocess, src/main/cpp): crop dan rotasi, resize dan equalizeHist OpenCV,
+ * lalu normalisasi ke [0, 1] (atau lookup tabel kuantisasi untuk input UINT8/INT8). Tidak ada salinan crop ke heap Java, Mat Java, maupun MatPool;
+ * Mat perantara hidup di sisi native dan dipakai ulang per thread.
+ *
+ * Karena Y plane dibaca langsung, process() harus dipanggil sebelum ImageProxy ditutup, yaitu di
+ * tahap acquire. Urutan operasinya mengikuti jalur Java yang dipilih (FusedPreprocessKernel atau
+ * FramePreprocessor), jadi hasilnya sama dengan jalur itu sampai selisih pembulatan.
+ */
+public final class NativePreprocessor {
+
+    private static final String TAG = "NativePreprocessor";
+    private static final String LIBRARY = "frame_preprocess";
+
+    // Dijaga oleh NativePreprocessor.class
+    private static boolean loadAttempted;
+    private static boolean loaded;
+
+    private final ByteBuffer inputBuffer;
+    private final int inputWidth;
+    private final int inputHeight;
+    private final int bytesPerSample;
+    // Null untuk input float
+    private final byte[] quantization;
+    private final boolean areaFirst;
+
+    /**
+     * @param inputBuffer buffer input classifier atau buffer dari classifier.newInputBuffer()
+     * @param areaFirst true untuk urutan FusedPreprocessKernel (resize area lalu equalize),
+     *                  false untuk urutan FramePreprocessor (equalize lalu resize linear)
+     */
+    public NativePreprocessor(TFLiteClassifier classifier, ByteBuffer inputBuffer, boolean areaFirst) {
+        if (!inputBuffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer input harus direct ByteBuffer");
+        }
+        this.inputBuffer = inputBuffer;
+        this.inputWidth = classifier.getInputWidth();
+        this.inputHeight = classifier.getInputHeight();
+        this.bytesPerSample = classifier.getInputBytesPerSample();
+        this.quantization = classifier.getInputQuantization();
+        this.areaFirst = areaFirst;
+    }
+
+    /**
+     * Memuat library native sekali. OpenCV (libopencv_java4) harus sudah dimuat sebelumnya.
+     *
+     * @return false jika library tidak ada di APK atau gagal dimuat
+     */
+    public static synchronized boolean isAvailable() {
+        if (!loadAttempted) {
+            loadAttempted = true;
+            try {
+                System.loadLibrary(LIBRARY);
+                loaded = true;
+            } catch (UnsatisfiedLinkError e) {
+                Log.w(TAG, "Library " + LIBRARY + " tidak tersedia, memakai preprocess Java", e);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Memproses region persegi (koordinat frame yang sudah dirotasi, sama seperti
+     * FrameConverter.extractRegion()) ke slot batch tertentu pada buffer input.
+     *
+     * @return false jika Y plane tidak bisa dibaca langsung (pixel stride bukan 1 atau buffer
+     *         tidak direct); pemanggil harus memakai jalur salin + FramePreprocessor
+     */
+    public boolean process(ImageProxy image, int left, int top, int size, int slot) {
+        ImageProxy.PlaneProxy yPlane = image.getPlanes()[0];
+        ByteBuffer plane = yPlane.getBuffer();
+        if (yPlane.getPixelStride() != 1 || !plane.isDirect()) {
+            return false;
+        }
+        nPreprocess(plane, yPlane.getRowStride(), image.getWidth(), image.getHeight(),
+                image.getImageInfo().getRotationDegrees(), left, top, size,
+                inputBuffer, slot * bytesPerSample, inputWidth, inputHeight, quantization, areaFirst);
+        return true;
+    }
+
+    private static native void nPreprocess(ByteBuffer plane, int rowStride, int width, int height, int rotation,
+                                           int left, int top, int size, ByteBuffer dst, int dstOffset,
+                                           int dstWidth, int dstHeight, byte[] quantization, boolean areaFirst);
+}
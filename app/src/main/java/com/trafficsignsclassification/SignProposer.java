@@ -0,0 +1,193 @@
+package com.trafficsignsclassification;
+
+import androidx.camera.core.ImageProxy;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tahap pencarian kandidat lokasi rambu (region proposal) berdasarkan warna.
+ *
+ * Bekerja langsung pada plane chroma (U/V) yang resolusinya sudah setengah dari frame, jadi
+ * tidak perlu konversi ke RGB/HSV: merah berarti Cr (V) tinggi, biru berarti Cb (U) tinggi
+ * dan Cr rendah. Mask hasil Core.inRange dibersihkan dengan morphological opening, lalu kontur
+ * luarnya diambil dengan findContours. Kandidat dengan luas terbesar dikembalikan sebagai
+ * kotak persegi dalam koordinat frame yang sudah dirotasi, siap dipakai FrameConverter.
+ */
+public class SignProposer {
+
+    // Batas warna dalam ruang (V, U) dengan offset 128
+    private static final Scalar RED_LOWER = new Scalar(155, 0);
+    private static final Scalar RED_UPPER = new Scalar(255, 255);
+    private static final Scalar BLUE_LOWER = new Scalar(0, 150);
+    private static final Scalar BLUE_UPPER = new Scalar(125, 255);
+
+    private static final float MIN_ASPECT = 0.6f;
+    private static final float MAX_ASPECT = 1.6f;
+    private static final float ROI_MARGIN = 0.15f;
+
+    private final int maxProposals;
+    private final int minArea;
+
+    private byte[] chroma = new byte[0];
+    private final Mat chromaMat = new Mat();
+    private final Mat redMask = new Mat();
+    private final Mat blueMask = new Mat();
+    private final Mat mask = new Mat();
+    private final Mat hierarchy = new Mat();
+    private final Mat kernel = Imgproc.getStructuringElement(Imgproc.MORPH_ELLIPSE, new Size(3, 3));
+    private final List<MatOfPoint> contours = new ArrayList<>();
+
+    // Kandidat terbaik: (left, top, size) dalam koordinat luma terotasi, diurutkan berdasar luas
+    private final int[] rois;
+    private final int[] areas;
+    private int count;
+
+    /**
+     * @param maxProposals jumlah maksimum kandidat per frame (top-K)
+     * @param minArea      luas bounding box minimum dalam piksel chroma
+     */
+    public SignProposer(int maxProposals, int minArea) {
+        this.maxProposals = maxProposals;
+        this.minArea = minArea;
+        this.rois = new int[maxProposals * 3];
+        this.areas = new int[maxProposals];
+    }
+
+    /** @return jumlah kandidat yang ditemukan pada frame ini (maksimal maxProposals) */
+    public int propose(ImageProxy image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int rotation = image.getImageInfo().getRotationDegrees();
+        int chromaWidth = width / 2;
+        int chromaHeight = height / 2;
+
+        ImageProxy.PlaneProxy uPlane = image.getPlanes()[1];
+        ImageProxy.PlaneProxy vPlane = image.getPlanes()[2];
+        copyChroma(uPlane.getBuffer(), vPlane.getBuffer(), uPlane.getRowStride(), uPlane.getPixelStride(),
+                chromaWidth, chromaHeight);
+
+        chromaMat.create(chromaHeight, chromaWidth, CvType.CV_8UC2);
+        chromaMat.put(0, 0, chroma, 0, chromaWidth * chromaHeight * 2);
+        Core.inRange(chromaMat, RED_LOWER, RED_UPPER, redMask);
+        Core.inRange(chromaMat, BLUE_LOWER, BLUE_UPPER, blueMask);
+        Core.bitwise_or(redMask, blueMask, mask);
+        Imgproc.morphologyEx(mask, mask, Imgproc.MORPH_OPEN, kernel);
+
+        Imgproc.findContours(mask, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+        count = 0;
+        int maxArea = chromaWidth * chromaHeight / 2;
+        for (MatOfPoint contour : contours) {
+            Rect box = Imgproc.boundingRect(contour);
+            contour.close();
+            int area = box.width * box.height;
+            float aspect = (float) box.width / box.height;
+            if (area < minArea || area > maxArea || aspect < MIN_ASPECT || aspect > MAX_ASPECT) {
+                continue;
+            }
+            insert(box, area, width, height, rotation);
+        }
+        contours.clear();
+        return count;
+    }
+
+    public int getLeft(int index) {
+        return rois[index * 3];
+    }
+
+    public int getTop(int index) {
+        return rois[index * 3 + 1];
+    }
+
+    public int getSize(int index) {
+        return rois[index * 3 + 2];
+    }
+
+    public void release() {
+        chromaMat.close();
+        redMask.close();
+        blueMask.close();
+        mask.close();
+        hierarchy.close();
+        kernel.close();
+    }
+
+    /** Menyalin U/V ke array interleaved (V, U) sambil menghormati stride plane. */
+    private void copyChroma(ByteBuffer u, ByteBuffer v, int rowStride, int pixelStride,
+                            int chromaWidth, int chromaHeight) {
+        int needed = chromaWidth * chromaHeight * 2;
+        if (chroma.length < needed) {
+            chroma = new byte[needed];
+        }
+        int out = 0;
+        for (int y = 0; y < chromaHeight; y++) {
+            int index = y * rowStride;
+            for (int x = 0; x < chromaWidth; x++, index += pixelStride) {
+                chroma[out++] = v.get(index);
+                chroma[out++] = u.get(index);
+            }
+        }
+    }
+
+    /** Menyisipkan kandidat ke daftar top-K (urut luas menurun) dalam koordinat terotasi. */
+    private void insert(Rect box, int area, int width, int height, int rotation) {
+        int position = count;
+        while (position > 0 && areas[position - 1] < area) {
+            position--;
+        }
+        if (position >= maxProposals) {
+            return;
+        }
+        int last = Math.min(count, maxProposals - 1);
+        for (int i = last; i > position; i--) {
+            areas[i] = areas[i - 1];
+            System.arraycopy(rois, (i - 1) * 3, rois, i * 3, 3);
+        }
+        areas[position] = area;
+        if (count < maxProposals) count++;
+
+        // Koordinat chroma -> luma (sensor), lalu ke frame terotasi
+        int x = box.x * 2, y = box.y * 2, w = box.width * 2, h = box.height * 2;
+        int rotatedX, rotatedY, rotatedW, rotatedH, rotatedWidth, rotatedHeight;
+        switch (rotation) {
+            case 90:
+                rotatedX = height - (y + h); rotatedY = x; rotatedW = h; rotatedH = w;
+                rotatedWidth = height; rotatedHeight = width;
+                break;
+            case 180:
+                rotatedX = width - (x + w); rotatedY = height - (y + h); rotatedW = w; rotatedH = h;
+                rotatedWidth = width; rotatedHeight = height;
+                break;
+            case 270:
+                rotatedX = y; rotatedY = width - (x + w); rotatedW = h; rotatedH = w;
+                rotatedWidth = height; rotatedHeight = width;
+                break;
+            default:
+                rotatedX = x; rotatedY = y; rotatedW = w; rotatedH = h;
+                rotatedWidth = width; rotatedHeight = height;
+                break;
+        }
+
+        // Jadikan persegi dengan sedikit margin, lalu geser agar tetap di dalam frame
+        int size = (int) (Math.max(rotatedW, rotatedH) * (1 + ROI_MARGIN));
+        size = Math.min(size, Math.min(rotatedWidth, rotatedHeight));
+        int left = rotatedX + rotatedW / 2 - size / 2;
+        int top = rotatedY + rotatedH / 2 - size / 2;
+        left = Math.max(0, Math.min(left, rotatedWidth - size));
+        top = Math.max(0, Math.min(top, rotatedHeight - size));
+
+        rois[position * 3] = left;
+        rois[position * 3 + 1] = top;
+        rois[position * 3 + 2] = size;
+    }
+}
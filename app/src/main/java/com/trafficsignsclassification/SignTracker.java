@@ -0,0 +1,564 @@
+package com.trafficsignsclassification;
+
+import androidx.camera.core.ImageProxy;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfFloat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.video.KalmanFilter;
+import org.opencv.video.Video;
+
+import java.util.Arrays;
+
+/**
+ * Pelacak banyak rambu antar frame supaya deteksi dan klasifikasi tidak perlu diulang di
+ * setiap frame.
+ *
+ * Setiap track punya ID tetap, KalmanFilter (state: pusat x/y dan kecepatannya) untuk
+ * memprediksi gerakan, dan beberapa titik fitur yang diikuti dengan optical flow Lucas-Kanade
+ * piramidal pada Y plane setengah resolusi. Median pergeseran titik menjadi pengukuran untuk
+ * Kalman; proporsi titik yang masih terlacak menjadi confidence tracking. Hasil proposal warna
+ * dicocokkan ke track lewat IoU, sisanya menjadi track baru. Track hanya diklasifikasi ulang
+ * setiap beberapa frame atau saat confidence tracking rendah, dan setiap track menyimpan
+ * TemporalAggregator sendiri.
+ *
+ * Sebanyak maxTracks objek Track, masing-masing dengan KalmanFilter dan aggregator sendiri,
+ * dibuat sekali di konstruktor. Track baru mengambil objek dari pool dan mendapat ID baru; track
+ * yang hilang dikembalikan ke pool.
+ *
+ * Semua koordinat kotak dalam frame luma yang sudah dirotasi (sama seperti SignProposer dan
+ * FrameConverter).
+ */
+public class SignTracker {
+
+    /** Membuat TemporalAggregator untuk setiap track di pool. */
+    public interface AggregatorFactory {
+        TemporalAggregator create();
+    }
+
+    private static final int TRACKING_SCALE = 2;
+    private static final int MAX_POINTS_PER_TRACK = 20;
+    private static final int MIN_FLOW_POINTS = 4;
+    private static final double FEATURE_QUALITY = 0.01;
+    private static final double FEATURE_MIN_DISTANCE = 3;
+    private static final Size FLOW_WINDOW = new Size(15, 15);
+    private static final int FLOW_PYRAMID_LEVELS = 2;
+    private static final float MAX_FLOW_ERROR = 30f;
+    private static final float MIN_IOU = 0.3f;
+    private static final double PROCESS_NOISE = 1e-2;
+    private static final double MEASUREMENT_NOISE = 1e-1;
+
+    /** Satu rambu yang sedang dilacak. */
+    public static class Track {
+        // Berganti setiap kali objek dipakai ulang dari pool
+        private int id;
+        private final KalmanFilter kalman;
+        private final TemporalAggregator aggregator;
+        // Titik fitur dalam koordinat frame tracking (setengah resolusi), interleaved x, y
+        private final float[] points = new float[MAX_POINTS_PER_TRACK * 2];
+        private int pointCount;
+        private int seededPointCount;
+
+        private float centerX;
+        private float centerY;
+        private int size;
+        private int left;
+        private int top;
+        private float confidence = 1f;
+        private int missedFrames;
+        private int framesSinceClassified;
+        private boolean classified;
+        private boolean classificationPending;
+
+        Track(KalmanFilter kalman, TemporalAggregator aggregator) {
+            this.kalman = kalman;
+            this.aggregator = aggregator;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getLeft() {
+            return left;
+        }
+
+        public int getTop() {
+            return top;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /** Proporsi titik fitur yang masih terlacak sejak terakhir di-seed (0..1). */
+        public float getConfidence() {
+            return confidence;
+        }
+
+        public TemporalAggregator getAggregator() {
+            return aggregator;
+        }
+    }
+
+    private final int maxTracks;
+    private final int detectionInterval;
+    private final int reclassifyInterval;
+    private final float minTrackingConfidence;
+    private final int maxMissedFrames;
+
+    private final Track[] tracks;
+    private int trackCount;
+    // Track yang tidak sedang dipakai; bersama tracks selalu berisi maxTracks objek
+    private final Track[] pool;
+    private int poolCount;
+    private int nextId = 1;
+    private int framesSinceDetection;
+    private final boolean[] matched;
+
+    // Ukuran frame terotasi dalam resolusi penuh
+    private int frameWidth;
+    private int frameHeight;
+
+    private final Size trackingSize = new Size();
+    private final Mat resizedMat = new Mat();
+    private Mat frameMat = new Mat();
+    private Mat previousMat = new Mat();
+    private boolean hasPrevious;
+
+    private final MatOfPoint2f previousPoints = new MatOfPoint2f();
+    private final MatOfPoint2f nextPoints = new MatOfPoint2f();
+    private final MatOfByte status = new MatOfByte();
+    private final MatOfFloat errors = new MatOfFloat();
+    private final MatOfPoint corners = new MatOfPoint();
+    private final Mat measurement = new Mat(2, 1, CvType.CV_32F);
+    private final float[] flowIn;
+    private final float[] flowOut;
+    private final byte[] flowStatus;
+    private final float[] flowErrors;
+    private final int[] cornerData = new int[MAX_POINTS_PER_TRACK * 2];
+    private final float[] dxs = new float[MAX_POINTS_PER_TRACK];
+    private final float[] dys = new float[MAX_POINTS_PER_TRACK];
+    private final float[] state = new float[4];
+    private final float[] measured = new float[2];
+
+    /**
+     * @param maxTracks             jumlah track maksimum sekaligus
+     * @param detectionInterval     proposal warna dijalankan ulang setiap sekian frame (atau saat tidak ada track)
+     * @param reclassifyInterval    track diklasifikasi ulang setiap sekian frame (N)
+     * @param minTrackingConfidence di bawah nilai ini track langsung diklasifikasi ulang
+     * @param maxMissedFrames       track dihapus setelah sekian frame tidak terukur berturut-turut
+     */
+    public SignTracker(int maxTracks, int detectionInterval, int reclassifyInterval,
+                       float minTrackingConfidence, int maxMissedFrames, AggregatorFactory aggregatorFactory) {
+        this.maxTracks = maxTracks;
+        this.detectionInterval = detectionInterval;
+        this.reclassifyInterval = reclassifyInterval;
+        this.minTrackingConfidence = minTrackingConfidence;
+        this.maxMissedFrames = maxMissedFrames;
+        this.tracks = new Track[maxTracks];
+        this.pool = new Track[maxTracks];
+        for (int i = 0; i < maxTracks; i++) {
+            pool[i] = new Track(createKalman(), aggregatorFactory.create());
+        }
+        this.poolCount = maxTracks;
+        this.matched = new boolean[maxTracks];
+        this.flowIn = new float[maxTracks * MAX_POINTS_PER_TRACK * 2];
+        this.flowOut = new float[flowIn.length];
+        this.flowStatus = new byte[maxTracks * MAX_POINTS_PER_TRACK];
+        this.flowErrors = new float[flowStatus.length];
+    }
+
+    /** True jika frame ini perlu menjalankan SignProposer lagi. */
+    public boolean shouldDetect() {
+        return trackCount == 0 || framesSinceDetection >= detectionInterval;
+    }
+
+    /**
+     * Memperbarui posisi semua track dengan frame baru. Harus dipanggil sebelum ImageProxy
+     * ditutup dan sebelum onDetections() untuk frame yang sama.
+     */
+    public void update(ImageProxy image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int rotation = image.getImageInfo().getRotationDegrees();
+        boolean swapped = rotation == 90 || rotation == 270;
+        frameWidth = swapped ? height : width;
+        frameHeight = swapped ? width : height;
+
+        // Y plane dibungkus langsung (pixel stride Y selalu 1), diperkecil, lalu dirotasi
+        ImageProxy.PlaneProxy yPlane = image.getPlanes()[0];
+        trackingSize.width = width / TRACKING_SCALE;
+        trackingSize.height = height / TRACKING_SCALE;
+        try (Mat luma = new Mat(height, width, CvType.CV_8UC1, yPlane.getBuffer(), yPlane.getRowStride())) {
+            Imgproc.resize(luma, resizedMat, trackingSize, 0, 0, Imgproc.INTER_AREA);
+        }
+
+        Mat swap = previousMat;
+        previousMat = frameMat;
+        frameMat = swap;
+        switch (rotation) {
+            case 90:
+                Core.rotate(resizedMat, frameMat, Core.ROTATE_90_CLOCKWISE);
+                break;
+            case 180:
+                Core.rotate(resizedMat, frameMat, Core.ROTATE_180);
+                break;
+            case 270:
+                Core.rotate(resizedMat, frameMat, Core.ROTATE_90_COUNTERCLOCKWISE);
+                break;
+            default:
+                resizedMat.copyTo(frameMat);
+                break;
+        }
+
+        if (hasPrevious && trackCount > 0 && previousMat.size().equals(frameMat.size())) {
+            trackFlow();
+        }
+        hasPrevious = true;
+        framesSinceDetection++;
+        for (int i = 0; i < trackCount; i++) {
+            tracks[i].framesSinceClassified++;
+        }
+        removeLostTracks();
+    }
+
+    /**
+     * Mencocokkan hasil SignProposer di frame ini dengan track yang ada. Kandidat yang
+     * cocok (IoU cukup besar) memperbarui track tersebut; sisanya menjadi track baru.
+     */
+    public void onDetections(SignProposer proposer, int count) {
+        framesSinceDetection = 0;
+        Arrays.fill(matched, false);
+
+        for (int p = 0; p < count; p++) {
+            int left = proposer.getLeft(p);
+            int top = proposer.getTop(p);
+            int size = proposer.getSize(p);
+
+            int best = -1;
+            float bestIou = MIN_IOU;
+            for (int i = 0; i < trackCount; i++) {
+                if (matched[i]) continue;
+                float iou = iou(tracks[i], left, top, size);
+                if (iou >= bestIou) {
+                    bestIou = iou;
+                    best = i;
+                }
+            }
+
+            if (best >= 0) {
+                Track track = tracks[best];
+                matched[best] = true;
+                track.size = size;
+                correct(track, left + size / 2f, top + size / 2f);
+                track.missedFrames = 0;
+                seedPoints(track);
+            } else if (trackCount < maxTracks) {
+                Track track = createTrack(left, top, size);
+                matched[trackCount] = true;
+                tracks[trackCount++] = track;
+            }
+        }
+
+        // Track yang tidak terlihat oleh proposal dianggap terlewat satu kali
+        for (int i = 0; i < trackCount; i++) {
+            if (!matched[i]) tracks[i].missedFrames++;
+        }
+        removeLostTracks();
+    }
+
+    public int getTrackCount() {
+        return trackCount;
+    }
+
+    public Track getTrack(int index) {
+        return tracks[index];
+    }
+
+    /**
+     * True jika track belum pernah diklasifikasi, sudah N frame sejak klasifikasi, atau
+     * tracking-nya ragu, dan tidak sedang menunggu hasil klasifikasi sebelumnya.
+     */
+    public boolean needsClassification(Track track) {
+        if (track.classificationPending) {
+            return false;
+        }
+        return !track.classified
+                || track.framesSinceClassified >= reclassifyInterval
+                || track.confidence < minTrackingConfidence;
+    }
+
+    /** Menandai crop track sudah dikirim ke classifier; hasilnya datang lewat onClassified(). */
+    public void onClassificationQueued(Track track) {
+        track.classificationPending = true;
+    }
+
+    /**
+     * Menambahkan skor klasifikasi crop track (mulai dari offset) ke aggregator track tersebut.
+     * trackId adalah ID track saat crop dikirim; jika berbeda, objek track sudah kembali ke pool
+     * dan dipakai rambu lain, jadi hasilnya dibuang.
+     */
+    public void onClassified(Track track, int trackId, float[] scores, int offset) {
+        if (track.id != trackId) {
+            return;
+        }
+        track.aggregator.add(scores, offset);
+        track.classificationPending = false;
+        track.classified = true;
+        track.framesSinceClassified = 0;
+        if (track.confidence < minTrackingConfidence) {
+            // Posisi sudah dikonfirmasi ulang lewat klasifikasi, mulai lagi dengan titik baru
+            seedPoints(track);
+        }
+    }
+
+    /**
+     * Crop track gagal di-preprocess atau diinferensi. Track boleh diklasifikasi lagi di frame
+     * berikutnya; aggregator-nya tidak berubah. Diabaikan jika objek track sudah dipakai ulang.
+     */
+    public void onClassificationFailed(Track track, int trackId) {
+        if (track.id == trackId) {
+            track.classificationPending = false;
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < trackCount; i++) {
+            recycle(tracks[i]);
+        }
+        Arrays.fill(tracks, null);
+        trackCount = 0;
+        framesSinceDetection = 0;
+        hasPrevious = false;
+    }
+
+    public void release() {
+        resizedMat.close();
+        frameMat.close();
+        previousMat.close();
+        previousPoints.close();
+        nextPoints.close();
+        status.close();
+        errors.close();
+        corners.close();
+        measurement.close();
+        // KalmanFilter tidak punya close(); lepaskan referensinya supaya finalizer membebaskan memori native
+        Arrays.fill(tracks, null);
+        Arrays.fill(pool, null);
+        trackCount = 0;
+        poolCount = 0;
+    }
+
+    /** Menjalankan optical flow untuk titik semua track sekaligus, lalu memperbarui Kalman tiap track. */
+    private void trackFlow() {
+        int total = 0;
+        for (int i = 0; i < trackCount; i++) {
+            Track track = tracks[i];
+            System.arraycopy(track.points, 0, flowIn, total * 2, track.pointCount * 2);
+            total += track.pointCount;
+        }
+
+        if (total > 0) {
+            previousPoints.create(total, 1, CvType.CV_32FC2);
+            previousPoints.put(0, 0, flowIn);
+            Video.calcOpticalFlowPyrLK(previousMat, frameMat, previousPoints, nextPoints, status, errors,
+                    FLOW_WINDOW, FLOW_PYRAMID_LEVELS);
+            nextPoints.get(0, 0, flowOut);
+            status.get(0, 0, flowStatus);
+            errors.get(0, 0, flowErrors);
+        }
+
+        int start = 0;
+        for (int i = 0; i < trackCount; i++) {
+            Track track = tracks[i];
+            int good = 0;
+            for (int k = 0; k < track.pointCount; k++) {
+                int index = start + k;
+                if (flowStatus[index] == 0 || flowErrors[index] > MAX_FLOW_ERROR) continue;
+                float x = flowOut[index * 2];
+                float y = flowOut[index * 2 + 1];
+                dxs[good] = x - flowIn[index * 2];
+                dys[good] = y - flowIn[index * 2 + 1];
+                track.points[good * 2] = x;
+                track.points[good * 2 + 1] = y;
+                good++;
+            }
+            start += track.pointCount;
+            track.pointCount = good;
+            track.confidence = track.seededPointCount > 0 ? (float) good / track.seededPointCount : 0f;
+
+            // Pengukuran = posisi frame sebelumnya + pergeseran flow, bukan hasil prediksi
+            float previousX = track.centerX;
+            float previousY = track.centerY;
+            predict(track);
+            if (good >= MIN_FLOW_POINTS) {
+                // Median pergeseran tahan terhadap beberapa titik yang salah lacak
+                Arrays.sort(dxs, 0, good);
+                Arrays.sort(dys, 0, good);
+                float dx = dxs[good / 2] * TRACKING_SCALE;
+                float dy = dys[good / 2] * TRACKING_SCALE;
+                correct(track, previousX + dx, previousY + dy);
+                track.missedFrames = 0;
+                if (good < track.seededPointCount / 2) {
+                    seedPoints(track);
+                }
+            } else {
+                track.missedFrames++;
+            }
+        }
+    }
+
+    /** KalmanFilter dengan model kecepatan konstan; state dan kovarians error diisi saat track diaktifkan. */
+    private static KalmanFilter createKalman() {
+        KalmanFilter kalman = new KalmanFilter(4, 2, 0, CvType.CV_32F);
+
+        // Matriks milik KalmanFilter diisi langsung lewat get_*(), yang mengembalikan header ke
+        // data yang sama; set_*() hanya berbagi data dengan Mat pemanggil. Bawaannya: transisi
+        // dan noise berupa identitas, matriks pengukuran dan kovarians error nol.
+        // Model kecepatan konstan: x += vx, y += vy
+        Mat transition = kalman.get_transitionMatrix();
+        transition.put(0, 2, 1);
+        transition.put(1, 3, 1);
+        transition.close();
+
+        Mat measurementMatrix = kalman.get_measurementMatrix();
+        Core.setIdentity(measurementMatrix);
+        measurementMatrix.close();
+
+        Mat processNoise = kalman.get_processNoiseCov();
+        Core.setIdentity(processNoise, new Scalar(PROCESS_NOISE));
+        processNoise.close();
+
+        Mat measurementNoise = kalman.get_measurementNoiseCov();
+        Core.setIdentity(measurementNoise, new Scalar(MEASUREMENT_NOISE));
+        measurementNoise.close();
+        return kalman;
+    }
+
+    /** Mengambil track dari pool dan mengisinya ulang seperti track yang baru dibuat. */
+    private Track createTrack(int left, int top, int size) {
+        Track track = pool[--poolCount];
+        pool[poolCount] = null;
+        float centerX = left + size / 2f;
+        float centerY = top + size / 2f;
+
+        // State dan kovarians sisa rambu sebelumnya ditimpa; versi pre ikut diisi supaya
+        // correct() sebelum predict() pertama tidak memakai nilai lama
+        KalmanFilter kalman = track.kalman;
+        Mat errorCov = kalman.get_errorCovPost();
+        Core.setIdentity(errorCov);
+        errorCov.close();
+        Mat errorCovPre = kalman.get_errorCovPre();
+        Core.setIdentity(errorCovPre);
+        errorCovPre.close();
+
+        Mat initialState = kalman.get_statePost();
+        initialState.put(0, 0, centerX, centerY, 0, 0);
+        initialState.close();
+        Mat statePre = kalman.get_statePre();
+        statePre.put(0, 0, centerX, centerY, 0, 0);
+        statePre.close();
+
+        track.aggregator.reset();
+        track.id = nextId++;
+        track.confidence = 1f;
+        track.missedFrames = 0;
+        track.framesSinceClassified = 0;
+        track.classified = false;
+        track.classificationPending = false;
+        track.size = size;
+        setCenter(track, centerX, centerY);
+        seedPoints(track);
+        return track;
+    }
+
+    private void recycle(Track track) {
+        pool[poolCount++] = track;
+    }
+
+    private void predict(Track track) {
+        try (Mat predicted = track.kalman.predict()) {
+            predicted.get(0, 0, state);
+        }
+        setCenter(track, state[0], state[1]);
+    }
+
+    private void correct(Track track, float x, float y) {
+        measured[0] = x;
+        measured[1] = y;
+        measurement.put(0, 0, measured);
+        try (Mat corrected = track.kalman.correct(measurement)) {
+            corrected.get(0, 0, state);
+        }
+        setCenter(track, state[0], state[1]);
+    }
+
+    private void setCenter(Track track, float x, float y) {
+        track.centerX = x;
+        track.centerY = y;
+        int size = Math.min(track.size, Math.min(frameWidth, frameHeight));
+        track.size = size;
+        track.left = Math.max(0, Math.min(Math.round(x - size / 2f), frameWidth - size));
+        track.top = Math.max(0, Math.min(Math.round(y - size / 2f), frameHeight - size));
+    }
+
+    /** Mengambil ulang titik fitur di dalam kotak track dari frame tracking saat ini. */
+    private void seedPoints(Track track) {
+        int left = track.left / TRACKING_SCALE;
+        int top = track.top / TRACKING_SCALE;
+        int size = Math.min(track.size / TRACKING_SCALE,
+                Math.min(frameMat.cols() - left, frameMat.rows() - top));
+        track.pointCount = 0;
+        if (size > 0) {
+            try (Mat region = frameMat.submat(new Rect(left, top, size, size))) {
+                Imgproc.goodFeaturesToTrack(region, corners, MAX_POINTS_PER_TRACK, FEATURE_QUALITY, FEATURE_MIN_DISTANCE);
+            }
+
+            int found = Math.min(corners.rows(), MAX_POINTS_PER_TRACK);
+            if (found > 0) {
+                corners.get(0, 0, cornerData);
+            }
+            for (int k = 0; k < found; k++) {
+                track.points[k * 2] = cornerData[k * 2] + left;
+                track.points[k * 2 + 1] = cornerData[k * 2 + 1] + top;
+            }
+            track.pointCount = found;
+        }
+        track.seededPointCount = track.pointCount;
+        track.confidence = 1f;
+    }
+
+    /** Menghapus track yang hilang terlalu lama atau pusatnya keluar dari frame, tanpa mengubah urutan sisanya. */
+    private void removeLostTracks() {
+        int kept = 0;
+        for (int i = 0; i < trackCount; i++) {
+            Track track = tracks[i];
+            boolean inside = track.centerX >= 0 && track.centerX < frameWidth
+                    && track.centerY >= 0 && track.centerY < frameHeight;
+            if (track.missedFrames <= maxMissedFrames && inside) {
+                tracks[kept++] = track;
+            } else {
+                recycle(track);
+            }
+        }
+        Arrays.fill(tracks, kept, trackCount, null);
+        trackCount = kept;
+    }
+
+    private static float iou(Track track, int left, int top, int size) {
+        int overlapWidth = Math.min(track.left + track.size, left + size) - Math.max(track.left, left);
+        int overlapHeight = Math.min(track.top + track.size, top + size) - Math.max(track.top, top);
+        if (overlapWidth <= 0 || overlapHeight <= 0) return 0f;
+        float intersection = (float) overlapWidth * overlapHeight;
+        return intersection / (track.size * track.size + size * size - intersection);
+    }
+}
@@ -2,7 +2,6 @@ package com.trafficsignsclassification;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
 import android.view.View;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
@@ -27,16 +26,20 @@ public class SplashActivity extends AppCompatActivity {
 
         setContentView(R.layout.activity_splash);
 
+        // Model, interpreter, OpenCV dan pemanasan dimuat di thread latar; splash selesai begitu semuanya siap
+        StartupLoader.start(this, MainActivity.MAX_BATCH_SIZE, this::openMainActivity);
+    }
 
+    private void openMainActivity() {
+        if (isFinishing()) {
+            return;
+        }
+        Intent intent = new Intent(SplashActivity.this, MainActivity.class);
+        startActivity(intent);
 
-        new Handler().postDelayed(() -> {
-            Intent intent = new Intent(SplashActivity.this, MainActivity.class);
-            startActivity(intent);
-
-            // Apply fade-in and scale-up animation on transition
-            overridePendingTransition(R.anim.fade_in_scale_up, android.R.anim.fade_out);
+        // Apply fade-in and scale-up animation on transition
+        overridePendingTransition(R.anim.fade_in_scale_up, android.R.anim.fade_out);
 
-            finish(); // Close the splash activity
-        }, 3000); // 3000 ms delay (3 seconds)
+        finish(); // Close the splash activity
     }
-}
\ No newline at end of file
+}
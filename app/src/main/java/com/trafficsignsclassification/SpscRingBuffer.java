@@ -0,0 +1,82 @@
+package com.trafficsignsclassification;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Antrian berkapasitas tetap untuk tepat satu thread produsen dan satu thread konsumen (SPSC).
+ * Tidak memakai lock: produsen hanya menulis tail, konsumen hanya menulis head. offer() tidak
+ * pernah menunggu dan mengembalikan false saat penuh, jadi pemanggil yang memutuskan
+ * backpressure-nya. Konsumen boleh memakai take(), yang mem-park thread saat antrian kosong
+ * dan dibangunkan oleh offer() berikutnya.
+ */
+public final class SpscRingBuffer<E> {
+
+    private final Object[] items;
+    private final int mask;
+    // Indeks baca berikutnya, hanya ditulis konsumen
+    private final AtomicLong head = new AtomicLong();
+    // Indeks tulis berikutnya, hanya ditulis produsen
+    private final AtomicLong tail = new AtomicLong();
+    private volatile Thread consumer;
+
+    /** @param capacity dibulatkan ke atas menjadi pangkat dua */
+    public SpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        items = new Object[size];
+        mask = size - 1;
+    }
+
+    /** Dipanggil oleh produsen. @return false jika antrian penuh */
+    public boolean offer(E item) {
+        long t = tail.get();
+        if (t - head.get() == items.length) {
+            return false;
+        }
+        items[(int) t & mask] = item;
+        // Tulis volatile (bukan lazySet) supaya konsumen yang baru mendaftar tidak ketinggalan item
+        tail.set(t + 1);
+        Thread waiting = consumer;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+        return true;
+    }
+
+    /** Dipanggil oleh konsumen. @return item berikutnya, atau null jika kosong */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        int index = (int) h & mask;
+        E item = (E) items[index];
+        items[index] = null;
+        head.lazySet(h + 1);
+        return item;
+    }
+
+    /** Seperti poll(), tetapi menunggu (park) sampai ada item. */
+    public E take() throws InterruptedException {
+        if (consumer == null) {
+            consumer = Thread.currentThread();
+        }
+        E item;
+        while ((item = poll()) == null) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return item;
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+}
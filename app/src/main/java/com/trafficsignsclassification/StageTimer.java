@@ -0,0 +1,165 @@
+package com.trafficsignsclassification;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Pengukur latensi per tahap untuk setiap frame yang dianalisis. Dipanggil dari thread
+ * analyzer: beginFrame() di awal, lalu endStage() setiap kali satu tahap selesai. Tahap yang
+ * berjalan di thread lain (pipeline) diukur di sana lalu dicatat lewat record() dari thread
+ * analyzer. Tidak ada alokasi di jalur per-frame; laporan teks hanya dibuat saat diminta.
+ */
+public class StageTimer {
+
+    public enum Stage {
+        TRACK("tracking"),
+        PROPOSE("proposal"),
+        CONVERT("konversi"),
+        PREPROCESS("preprocess"),
+        INFERENCE("inferensi"),
+        POSTPROCESS("postprocess"),
+        TOTAL("total");
+
+        final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+    private long frameStartNanos;
+    private long stageStartNanos;
+
+    // Estimasi frame yang dibuang STRATEGY_KEEP_ONLY_LATEST dari selisih timestamp sensor
+    private long lastTimestampNanos = -1;
+    private long framePeriodNanos = Long.MAX_VALUE;
+    private long frameCount;
+    private long droppedFrames;
+    private long skippedFrames;
+    private long rejectedFrames;
+
+    public StageTimer() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Menandai awal pemrosesan frame.
+     *
+     * @param sensorTimestampNanos timestamp frame dari ImageInfo, untuk menghitung frame yang terlewat
+     */
+    public void beginFrame(long sensorTimestampNanos) {
+        frameStartNanos = System.nanoTime();
+        stageStartNanos = frameStartNanos;
+        frameCount++;
+        trackTimestamp(sensorTimestampNanos);
+    }
+
+    /** Frame yang diterima tetapi sengaja tidak diproses (bukan frame yang terlewat). */
+    public void skipFrame(long sensorTimestampNanos) {
+        skippedFrames++;
+        trackTimestamp(sensorTimestampNanos);
+    }
+
+    /** Frame yang ditolak karena pipeline masih penuh (backpressure). */
+    public void rejectFrame(long sensorTimestampNanos) {
+        rejectedFrames++;
+        trackTimestamp(sensorTimestampNanos);
+    }
+
+    private void trackTimestamp(long sensorTimestampNanos) {
+        if (lastTimestampNanos >= 0) {
+            long delta = sensorTimestampNanos - lastTimestampNanos;
+            if (delta > 0) {
+                // Periode frame kamera = selisih terkecil yang pernah terlihat
+                if (delta < framePeriodNanos) framePeriodNanos = delta;
+                long missed = (delta + framePeriodNanos / 2) / framePeriodNanos - 1;
+                if (missed > 0) droppedFrames += missed;
+            }
+        }
+        lastTimestampNanos = sensorTimestampNanos;
+    }
+
+    /** Menutup tahap yang sedang berjalan dan memulai tahap berikutnya. */
+    public void endStage(Stage stage) {
+        long now = System.nanoTime();
+        histograms[stage.ordinal()].record((now - stageStartNanos) / 1000);
+        stageStartNanos = now;
+    }
+
+    /** Mencatat durasi tahap yang diukur di luar thread ini. */
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos / 1000);
+    }
+
+    /** Menutup frame; latensi total dihitung dari beginFrame(). */
+    public void endFrame() {
+        long now = System.nanoTime();
+        histograms[Stage.TOTAL.ordinal()].record((now - frameStartNanos) / 1000);
+        stageStartNanos = now;
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    public long getRejectedFrames() {
+        return rejectedFrames;
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        lastTimestampNanos = -1;
+        framePeriodNanos = Long.MAX_VALUE;
+        frameCount = 0;
+        droppedFrames = 0;
+        skippedFrames = 0;
+        rejectedFrames = 0;
+    }
+
+    /** Ringkasan p50/p90/p99 per tahap dalam mikrodetik. */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "Frame dianalisis: %d, dilewati: %d, ditolak: %d, terlewat: %d%n",
+                frameCount, skippedFrames, rejectedFrames, droppedFrames));
+        sb.append(String.format(Locale.US, "%-12s %8s %8s %8s %8s %8s %8s%n",
+                "tahap", "n", "mean", "p50", "p90", "p99", "max"));
+        for (Stage stage : STAGES) {
+            LatencyHistogram h = histograms[stage.ordinal()];
+            sb.append(String.format(Locale.US, "%-12s %8d %8.0f %8d %8d %8d %8d%n",
+                    stage.label, h.getCount(), h.getMeanMicros(),
+                    h.percentile(50), h.percentile(90), h.percentile(99), h.getMaxMicros()));
+        }
+        return sb.toString();
+    }
+
+    /** Menulis laporan ke file, diawali header perangkat agar hasil antar HP bisa dibandingkan. */
+    public void writeReport(File file, String header) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(header);
+            writer.write('\n');
+            writer.write(report());
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.trafficsignsclassification;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.opencv.android.OpenCVLoader;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Memuat semua yang dibutuhkan MainActivity di thread latar selama splash screen: label, mmap
+ * model, pembuatan Interpreter (termasuk delegate dan benchmark konfigurasi), library native
+ * OpenCV, lalu beberapa inferensi dan preprocess pemanasan supaya frame pertama tidak menanggung
+ * biaya JIT dan alokasi awal.
+ *
+ * Hasilnya diserahkan ke MainActivity lewat take(). Jika loader tidak pernah dijalankan
+ * (misalnya MainActivity dibuat ulang setelah proses dimatikan), MainActivity memuat semuanya
+ * sendiri secara sinkron dengan load().
+ */
+public final class StartupLoader {
+
+    private static final String TAG = "StartupLoader";
+    private static final String MODEL_FILE = "model_trained.tflite";
+    // Model terkuantisasi penuh (input UINT8/INT8); dipakai jika ada di assets
+    private static final String QUANTIZED_MODEL_FILE = "model_trained_int8.tflite";
+    // Model gerbang ModelCascade (ada rambu atau tidak); kaskade nonaktif jika tidak ada di assets
+    private static final String GATE_MODEL_FILE = "sign_gate.tflite";
+    private static final String LABELS_FILE = "labels.txt";
+    private static final int WARMUP_RUNS = 3;
+    // Ukuran crop tengah untuk frame analisis 640x480
+    private static final int WARMUP_CROP_SIZE = 240;
+
+    /** Hasil pemuatan; engine null jika model gagal dimuat. */
+    public static final class Result {
+        final InferenceEngine engine;
+        final List<String> labels;
+        final boolean openCvLoaded;
+
+        Result(InferenceEngine engine, List<String> labels, boolean openCvLoaded) {
+            this.engine = engine;
+            this.labels = labels;
+            this.openCvLoaded = openCvLoaded;
+        }
+    }
+
+    /** Dipanggil di main thread setelah pemuatan selesai, berhasil atau tidak. */
+    public interface Listener {
+        void onLoaded();
+    }
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Dijaga oleh StartupLoader.class
+    private static FutureTask<Result> task;
+    private static Listener listener;
+    private static boolean done;
+
+    private StartupLoader() {
+    }
+
+    /**
+     * Mulai memuat di thread latar. Jika pemuatan sudah berjalan (misalnya splash dibuat ulang),
+     * listener hanya diganti; jika sudah selesai, listener langsung dipanggil.
+     */
+    public static synchronized void start(Context context, int maxBatchSize, Listener onLoaded) {
+        listener = onLoaded;
+        if (task != null) {
+            if (done) {
+                notifyLoaded();
+            }
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        FutureTask<Result> newTask = new FutureTask<>(() -> load(appContext, maxBatchSize, true));
+        task = newTask;
+        done = false;
+        Thread thread = new Thread(() -> {
+            newTask.run();
+            synchronized (StartupLoader.class) {
+                if (task == newTask) {
+                    done = true;
+                    notifyLoaded();
+                }
+            }
+        }, "startup-loader");
+        thread.start();
+    }
+
+    /**
+     * Mengambil hasil pemuatan latar dan menyerahkan kepemilikan engine ke pemanggil. Menunggu
+     * jika pemuatan masih berjalan.
+     *
+     * @return null jika loader belum dijalankan atau hasilnya sudah diambil
+     */
+    public static Result take() {
+        FutureTask<Result> current;
+        synchronized (StartupLoader.class) {
+            current = task;
+            task = null;
+            listener = null;
+            done = false;
+        }
+        if (current == null) {
+            return null;
+        }
+        try {
+            return current.get();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Pemuatan latar gagal", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    // Dipanggil dengan lock StartupLoader.class
+    private static void notifyLoaded() {
+        Listener current = listener;
+        listener = null;
+        if (current != null) {
+            mainHandler.post(current::onLoaded);
+        }
+    }
+
+    /** Memuat label, model dan OpenCV di thread pemanggil. */
+    public static Result load(Context context, int maxBatchSize, boolean warmUp) {
+        long start = SystemClock.elapsedRealtime();
+        List<String> labels = loadLabels(context);
+
+        InferenceEngine engine = null;
+        try {
+            engine = InferenceEngine.createBest(context, loadModelFile(context), maxBatchSize);
+            Log.d(TAG, "Model TFLite berhasil dimuat (" + engine.getConfig() + ").");
+        } catch (IOException e) {
+            Log.e(TAG, "Error memuat model TFLite", e);
+        }
+        if (engine != null) {
+            loadGate(context, engine);
+        }
+
+        boolean openCvLoaded = OpenCVLoader.initDebug();
+        if (!openCvLoaded) {
+            Log.e(TAG, "Gagal memuat OpenCV");
+        }
+
+        if (warmUp && engine != null) {
+            warmUp(engine, openCvLoaded);
+        }
+        Log.d(TAG, "Pemuatan selesai dalam " + (SystemClock.elapsedRealtime() - start) + " ms");
+        return new Result(engine, labels, openCvLoaded);
+    }
+
+    private static void loadGate(Context context, InferenceEngine engine) {
+        try {
+            engine.loadGate(loadModelFile(context, GATE_MODEL_FILE));
+            Log.d(TAG, "Model gerbang " + GATE_MODEL_FILE + " dimuat, kaskade aktif");
+        } catch (FileNotFoundException e) {
+            Log.d(TAG, "Model gerbang tidak ada, semua crop langsung diklasifikasi");
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Error memuat model gerbang", e);
+        }
+    }
+
+    private static void warmUp(InferenceEngine engine, boolean openCvLoaded) {
+        TFLiteClassifier classifier = engine.getClassifier();
+        warmUpInterpreters(classifier);
+        if (engine.getGate() != null) {
+            warmUpInterpreters(engine.getGate());
+        }
+        if (!openCvLoaded && !MainActivity.FUSED_PREPROCESSING) {
+            return;
+        }
+        // Jalur preprocess yang dipakai pipeline juga dipanaskan, memakai buffer input bawaan classifier
+        FramePreprocessor preprocessor = new FramePreprocessor(classifier, MainActivity.FUSED_PREPROCESSING);
+        try {
+            byte[] gray = new byte[WARMUP_CROP_SIZE * WARMUP_CROP_SIZE];
+            for (int run = 0; run < WARMUP_RUNS; run++) {
+                preprocessor.process(gray, WARMUP_CROP_SIZE, 0);
+            }
+        } finally {
+            preprocessor.release();
+        }
+    }
+
+    // Setiap interpreter (satu per ukuran batch) dijalankan supaya delegate dan tensornya sudah siap
+    private static void warmUpInterpreters(TFLiteClassifier classifier) {
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            for (int count = 1; count <= classifier.getMaxBatchSize(); count++) {
+                classifier.run(count);
+            }
+        }
+    }
+
+    /** Memakai QUANTIZED_MODEL_FILE jika ada di assets, selain itu MODEL_FILE. */
+    private static MappedByteBuffer loadModelFile(Context context) throws IOException {
+        try {
+            MappedByteBuffer model = loadModelFile(context, QUANTIZED_MODEL_FILE);
+            Log.d(TAG, "Memakai model terkuantisasi " + QUANTIZED_MODEL_FILE);
+            return model;
+        } catch (FileNotFoundException e) {
+            return loadModelFile(context, MODEL_FILE);
+        }
+    }
+
+    private static MappedByteBuffer loadModelFile(Context context, String fileName) throws IOException {
+        try (AssetFileDescriptor fileDescriptor = context.getAssets().openFd(fileName);
+             FileInputStream inputStream = new FileInputStream(fileDescriptor.getFileDescriptor())) {
+            FileChannel fileChannel = inputStream.getChannel();
+            long startOffset = fileDescriptor.getStartOffset();
+            long declaredLength = fileDescriptor.getDeclaredLength();
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, startOffset, declaredLength);
+        }
+    }
+
+    private static List<String> loadLabels(Context context) {
+        List<String> labels = new ArrayList<>();
+        try (InputStream inputStream = context.getAssets().open(LABELS_FILE);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                labels.add(line);
+            }
+            Log.d(TAG, "Labels berhasil dimuat: " + labels.size() + " label.");
+        } catch (IOException e) {
+            Log.e(TAG, "Error memuat labels.txt", e);
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,306 @@
+package com.trafficsignsclassification;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pembungkus Interpreter TFLite dengan buffer input/output yang dialokasikan sekali.
+ * Buffer berupa direct ByteBuffer (native order) yang ukurannya diambil dari shape tensor
+ * model, sehingga run() tidak membuat objek baru dan TFLite cukup melakukan satu memcpy.
+ *
+ * Untuk mengklasifikasi beberapa crop dalam satu pemanggilan, disiapkan satu Interpreter per
+ * ukuran batch 1..maxBatchSize yang input-nya sudah di-resize saat konstruksi, jadi
+ * resizeInput/allocateTensors tidak pernah terjadi di loop frame. Semua interpreter berbagi
+ * satu buffer input kontigu; batch N cukup memakai slice N sampel pertama dari buffer itu.
+ * Buffer input tambahan bisa dibuat dengan newInputBuffer() supaya frame berikutnya bisa
+ * di-preprocess selagi frame sebelumnya masih diinferensi.
+ *
+ * Model terkuantisasi penuh (tensor input/output UINT8 atau INT8) juga didukung. Untuk input
+ * seperti itu buffer berisi satu byte per piksel; getInputQuantization() memberikan tabel dari
+ * nilai piksel 0..255 ke nilai tersimpan tensor, jadi preprocessing cukup satu lookup per piksel.
+ * Output terkuantisasi di-dequantize otomatis di run(), sehingga pemanggil selalu menerima skor float.
+ */
+public class TFLiteClassifier implements Closeable {
+
+    private final Interpreter[] interpreters;
+    private final ByteBuffer inputBuffer;
+    private final ByteBuffer outputBuffer;
+    private final List<ByteBuffer> inputBuffers = new ArrayList<>();
+    private final List<ByteBuffer[]> inputSlices = new ArrayList<>();
+    private final ByteBuffer[] outputSlices;
+    private final FloatBuffer inputFloats;
+    private final FloatBuffer outputFloats;
+    private final float[] scores;
+    private final int inputHeight;
+    private final int inputWidth;
+    private final int maxBatchSize;
+    private final int numClasses;
+    private final int inputBytesPerSample;
+    private final DataType inputType;
+    private final DataType outputType;
+    // Null untuk input float
+    private final byte[] inputQuantization;
+    // Hanya dipakai untuk output terkuantisasi
+    private final byte[] outputBytes;
+    private final float outputScale;
+    private final int outputZeroPoint;
+
+    public TFLiteClassifier(ByteBuffer model) {
+        this(model, new Interpreter.Options(), 1);
+    }
+
+    public TFLiteClassifier(ByteBuffer model, Interpreter.Options options) {
+        this(model, options, 1);
+    }
+
+    public TFLiteClassifier(ByteBuffer model, Interpreter.Options options, int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        interpreters = new Interpreter[maxBatchSize];
+        try {
+            for (int i = 0; i < maxBatchSize; i++) {
+                interpreters[i] = createInterpreter(model, options, i + 1);
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+
+        Tensor inputTensor = interpreters[0].getInputTensor(0);
+        Tensor outputTensor = interpreters[0].getOutputTensor(0);
+        int[] inputShape = inputTensor.shape(); // [batch, tinggi, lebar, channel]
+        int[] outputShape = outputTensor.shape(); // [batch, jumlah kelas]
+        if (inputShape.length != 4) {
+            close();
+            throw new IllegalArgumentException("Input model harus 4 dimensi [batch, tinggi, lebar, channel], bukan "
+                    + inputShape.length + " dimensi");
+        }
+        inputHeight = inputShape[1];
+        inputWidth = inputShape[2];
+        numClasses = outputShape[outputShape.length - 1];
+        inputType = checkSupported(inputTensor);
+        outputType = checkSupported(outputTensor);
+        inputQuantization = inputType == DataType.FLOAT32 ? null : quantizationTable(inputTensor);
+
+        inputBytesPerSample = inputTensor.numBytes();
+        int outputBytesPerSample = outputTensor.numBytes();
+        inputBuffer = newInputBuffer();
+        outputBuffer = ByteBuffer.allocateDirect(outputBytesPerSample * maxBatchSize).order(ByteOrder.nativeOrder());
+        outputSlices = slices(outputBuffer, outputBytesPerSample, maxBatchSize);
+        inputFloats = inputBuffer.asFloatBuffer();
+        outputFloats = outputBuffer.asFloatBuffer();
+        scores = new float[maxBatchSize * numClasses];
+        if (outputType == DataType.FLOAT32) {
+            outputBytes = null;
+            outputScale = 1f;
+            outputZeroPoint = 0;
+        } else {
+            Tensor.QuantizationParams params = outputTensor.quantizationParams();
+            outputBytes = new byte[maxBatchSize * numClasses];
+            outputScale = params.getScale();
+            outputZeroPoint = params.getZeroPoint();
+        }
+    }
+
+    private DataType checkSupported(Tensor tensor) {
+        DataType type = tensor.dataType();
+        if (type != DataType.FLOAT32 && type != DataType.UINT8 && type != DataType.INT8) {
+            close();
+            throw new IllegalArgumentException("Tipe tensor " + tensor.name() + " tidak didukung: " + type);
+        }
+        return type;
+    }
+
+    /**
+     * Nilai tersimpan untuk setiap piksel 0..255. Model float menerima piksel / 255, jadi nilai
+     * yang sama dikuantisasi dengan parameter tensor: q = round(piksel / 255 / scale) + zeroPoint.
+     */
+    private byte[] quantizationTable(Tensor tensor) {
+        Tensor.QuantizationParams params = tensor.quantizationParams();
+        float scale = params.getScale();
+        if (scale <= 0f) {
+            close();
+            throw new IllegalArgumentException("Tensor input " + tensor.name() + " tidak punya parameter kuantisasi");
+        }
+        int min = tensor.dataType() == DataType.UINT8 ? 0 : -128;
+        int max = min + 255;
+        byte[] table = new byte[256];
+        for (int pixel = 0; pixel < 256; pixel++) {
+            int q = Math.round(pixel / 255f / scale) + params.getZeroPoint();
+            table[pixel] = (byte) Math.max(min, Math.min(max, q));
+        }
+        return table;
+    }
+
+    private static Interpreter createInterpreter(ByteBuffer model, Interpreter.Options options, int batchSize) {
+        Interpreter interpreter = new Interpreter(model, options);
+        int[] inputShape = interpreter.getInputTensor(0).shape();
+        if (inputShape[0] != batchSize) {
+            inputShape[0] = batchSize;
+            interpreter.resizeInput(0, inputShape);
+            interpreter.allocateTensors();
+        }
+        return interpreter;
+    }
+
+    /** Slice ke-i berisi (i + 1) sampel pertama; TFLite mengecek kapasitas buffer terhadap ukuran tensor. */
+    private static ByteBuffer[] slices(ByteBuffer buffer, int bytesPerSample, int count) {
+        ByteBuffer[] result = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            buffer.position(0).limit((i + 1) * bytesPerSample);
+            result[i] = buffer.slice().order(ByteOrder.nativeOrder());
+        }
+        buffer.clear();
+        return result;
+    }
+
+    /**
+     * Membuat buffer input baru seukuran batch maksimum yang bisa dipakai dengan run(ByteBuffer, int).
+     * Panggil saat inisialisasi saja, bukan di loop frame.
+     */
+    public ByteBuffer newInputBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(inputBytesPerSample * maxBatchSize).order(ByteOrder.nativeOrder());
+        inputSlices.add(slices(buffer, inputBytesPerSample, maxBatchSize));
+        inputBuffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * Mendaftarkan buffer dari classifier lain yang format inputnya sama (misalnya buffer model
+     * utama untuk model gerbang ModelCascade), supaya bisa dipakai dengan run(ByteBuffer, int)
+     * tanpa salinan. Panggil saat inisialisasi saja.
+     */
+    public void registerInputBuffer(ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.capacity() < inputBytesPerSample * maxBatchSize) {
+            throw new IllegalArgumentException("Buffer input harus direct dan memuat " + maxBatchSize + " sampel");
+        }
+        for (ByteBuffer registered : inputBuffers) {
+            if (registered == buffer) return;
+        }
+        inputSlices.add(slices(buffer, inputBytesPerSample, maxBatchSize));
+        inputBuffers.add(buffer);
+    }
+
+    /** View float atas buffer input; isi dengan piksel yang sudah dinormalisasi sebelum run(). Hanya untuk input float. */
+    public FloatBuffer getInputFloats() {
+        if (inputQuantization != null) {
+            throw new IllegalStateException("Input model terkuantisasi, pakai getInputBuffer()");
+        }
+        inputFloats.rewind();
+        return inputFloats;
+    }
+
+    /** Buffer input untuk batch maksimum; sampel i dimulai di byte i * getInputBytesPerSample(). */
+    public ByteBuffer getInputBuffer() {
+        inputBuffer.rewind();
+        return inputBuffer;
+    }
+
+    /** Menjalankan inferensi untuk seluruh batch maksimum. */
+    public float[] run() {
+        return run(maxBatchSize);
+    }
+
+    /**
+     * Menjalankan inferensi untuk count sampel pertama di buffer input memakai interpreter
+     * yang sudah disiapkan untuk ukuran batch tersebut.
+     *
+     * @return skor per kelas untuk setiap sampel, berurutan (sampel i mulai di indeks
+     *         i * getNumClasses()); array yang sama dipakai ulang di setiap pemanggilan
+     */
+    public float[] run(int count) {
+        return run(inputBuffer, count);
+    }
+
+    /**
+     * Sama seperti run(int), tetapi membaca sampel dari buffer yang dibuat newInputBuffer().
+     * Hanya boleh dipanggil dari satu thread dalam satu waktu.
+     */
+    public float[] run(ByteBuffer buffer, int count) {
+        if (count < 1 || count > interpreters.length) {
+            throw new IllegalArgumentException("Jumlah sampel harus 1.." + interpreters.length + ", bukan " + count);
+        }
+        ByteBuffer input = inputSlices.get(indexOfInput(buffer))[count - 1];
+        ByteBuffer output = outputSlices[count - 1];
+        input.rewind();
+        output.rewind();
+        interpreters[count - 1].run(input, output);
+        int length = count * numClasses;
+        if (outputBytes == null) {
+            outputFloats.rewind();
+            outputFloats.get(scores, 0, length);
+        } else {
+            outputBuffer.rewind();
+            outputBuffer.get(outputBytes, 0, length);
+            boolean unsigned = outputType == DataType.UINT8;
+            for (int i = 0; i < length; i++) {
+                int q = unsigned ? outputBytes[i] & 0xFF : outputBytes[i];
+                scores[i] = (q - outputZeroPoint) * outputScale;
+            }
+        }
+        return scores;
+    }
+
+    // Dibandingkan per identitas; ByteBuffer.equals() membandingkan isi buffer
+    private int indexOfInput(ByteBuffer buffer) {
+        for (int i = 0; i < inputBuffers.size(); i++) {
+            if (inputBuffers.get(i) == buffer) return i;
+        }
+        throw new IllegalArgumentException("Buffer input tidak dibuat oleh classifier ini");
+    }
+
+    public int getInputWidth() {
+        return inputWidth;
+    }
+
+    public int getInputHeight() {
+        return inputHeight;
+    }
+
+    /** Jumlah byte satu sampel di buffer input: lebar * tinggi * 4 untuk float, lebar * tinggi untuk UINT8/INT8. */
+    public int getInputBytesPerSample() {
+        return inputBytesPerSample;
+    }
+
+    /** FLOAT32, UINT8 atau INT8. */
+    public DataType getInputType() {
+        return inputType;
+    }
+
+    /** True jika tensor input UINT8/INT8 (satu byte per piksel). */
+    public boolean isQuantizedInput() {
+        return inputQuantization != null;
+    }
+
+    /**
+     * Tabel 256 entri dari nilai piksel ke nilai tersimpan tensor input, atau null untuk input float.
+     * Jangan diubah isinya.
+     */
+    public byte[] getInputQuantization() {
+        return inputQuantization;
+    }
+
+    public int getNumClasses() {
+        return numClasses;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Override
+    public void close() {
+        for (Interpreter interpreter : interpreters) {
+            if (interpreter != null) {
+                interpreter.close();
+            }
+        }
+    }
+}
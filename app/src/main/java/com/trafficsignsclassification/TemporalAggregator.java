@@ -0,0 +1,175 @@
+package com.trafficsignsclassification;
+
+import java.util.Arrays;
+
+/**
+ * Menghaluskan prediksi dari beberapa frame berturut-turut agar satu frame yang salah tidak
+ * langsung mengganti rambu yang tampil. Dua mode tersedia:
+ * <ul>
+ *     <li>EMA: rata-rata eksponensial dari vektor skor per kelas.</li>
+ *     <li>VOTE: k-of-n voting atas argmax n frame terakhir (ring buffer).</li>
+ * </ul>
+ * Selain itu kelas ini memutuskan kapan inferensi boleh dilewati: setelah hasil stabil selama
+ * beberapa frame, inferensi hanya dijalankan sekali setiap beberapa frame. Hanya memakai array
+ * primitif yang dialokasikan di konstruktor.
+ */
+public class TemporalAggregator {
+
+    public enum Mode { EMA, VOTE }
+
+    public static final int NONE = -1;
+
+    private final Mode mode;
+    private final int numClasses;
+    private final float threshold;
+    private final float emaAlpha;
+    private final int minVotes;
+    private final int stableFramesToThrottle;
+    private final int throttledInterval;
+
+    private final float[] smoothed;
+    private final int[] voteRing;
+    private final int[] voteCounts;
+    private int ringPosition;
+    private int ringFilled;
+    private boolean hasEma;
+
+    private int currentClass = NONE;
+    private float currentConfidence;
+    private int stableFrames;
+    private int framesSinceInference;
+
+    /**
+     * @param numClasses             jumlah kelas output model
+     * @param threshold              probabilitas minimum agar sebuah kelas dianggap terdeteksi
+     * @param window                 jumlah frame di ring buffer voting (n)
+     * @param minVotes               jumlah suara minimum untuk mode VOTE (k)
+     * @param emaAlpha               bobot frame terbaru untuk mode EMA (0..1)
+     * @param stableFramesToThrottle jumlah frame stabil (M) sebelum inferensi mulai dijarangkan
+     * @param throttledInterval      saat stabil, inferensi hanya dijalankan 1 dari sekian frame
+     */
+    public TemporalAggregator(Mode mode, int numClasses, float threshold, int window, int minVotes,
+                              float emaAlpha, int stableFramesToThrottle, int throttledInterval) {
+        this.mode = mode;
+        this.numClasses = numClasses;
+        this.threshold = threshold;
+        this.emaAlpha = emaAlpha;
+        this.minVotes = minVotes;
+        this.stableFramesToThrottle = stableFramesToThrottle;
+        this.throttledInterval = throttledInterval;
+        this.smoothed = new float[numClasses];
+        this.voteRing = new int[window];
+        this.voteCounts = new int[numClasses];
+    }
+
+    /**
+     * Dipanggil sebelum inferensi. Mengembalikan false jika frame ini boleh dilewati karena
+     * prediksi sudah stabil; hasil terakhir tetap dipakai.
+     */
+    public boolean shouldRunInference() {
+        if (currentClass == NONE || stableFrames < stableFramesToThrottle) {
+            return true;
+        }
+        framesSinceInference++;
+        if (framesSinceInference >= throttledInterval) {
+            framesSinceInference = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /** Menambahkan skor dari satu frame yang diinferensi. */
+    public void add(float[] scores) {
+        add(scores, 0);
+    }
+
+    /** Menambahkan skor yang dimulai dari indeks offset (misalnya satu sampel dari output batch). */
+    public void add(float[] scores, int offset) {
+        int previousClass = currentClass;
+        if (mode == Mode.EMA) {
+            addEma(scores, offset);
+        } else {
+            addVote(scores, offset);
+        }
+
+        if (currentClass == previousClass) {
+            stableFrames++;
+        } else {
+            stableFrames = 1;
+            framesSinceInference = 0;
+        }
+    }
+
+    private void addEma(float[] scores, int offset) {
+        if (!hasEma) {
+            System.arraycopy(scores, offset, smoothed, 0, numClasses);
+            hasEma = true;
+        } else {
+            for (int i = 0; i < numClasses; i++) {
+                smoothed[i] += emaAlpha * (scores[offset + i] - smoothed[i]);
+            }
+        }
+        int best = argMax(smoothed, 0, numClasses);
+        currentConfidence = smoothed[best];
+        currentClass = currentConfidence > threshold ? best : NONE;
+    }
+
+    private void addVote(float[] scores, int offset) {
+        int best = argMax(scores, offset, numClasses);
+        int vote = scores[offset + best] > threshold ? best : NONE;
+
+        if (ringFilled == voteRing.length) {
+            int old = voteRing[ringPosition];
+            if (old != NONE) voteCounts[old]--;
+        } else {
+            ringFilled++;
+        }
+        voteRing[ringPosition] = vote;
+        if (vote != NONE) voteCounts[vote]++;
+        ringPosition = (ringPosition + 1) % voteRing.length;
+
+        int winner = 0;
+        for (int i = 1; i < numClasses; i++) {
+            if (voteCounts[i] > voteCounts[winner]) winner = i;
+        }
+        currentConfidence = (float) voteCounts[winner] / voteRing.length;
+        currentClass = voteCounts[winner] >= minVotes ? winner : NONE;
+    }
+
+    /** Kelas hasil penghalusan, atau NONE jika belum ada kelas yang cukup yakin. */
+    public int getClassIndex() {
+        return currentClass;
+    }
+
+    /** Probabilitas EMA kelas terpilih, atau proporsi suara untuk mode VOTE. */
+    public float getConfidence() {
+        return currentConfidence;
+    }
+
+    /** Berapa frame terinferensi berturut-turut hasilnya sama. */
+    public int getStableFrames() {
+        return stableFrames;
+    }
+
+    public void reset() {
+        Arrays.fill(smoothed, 0);
+        Arrays.fill(voteRing, NONE);
+        Arrays.fill(voteCounts, 0);
+        ringPosition = 0;
+        ringFilled = 0;
+        hasEma = false;
+        currentClass = NONE;
+        currentConfidence = 0;
+        stableFrames = 0;
+        framesSinceInference = 0;
+    }
+
+    /** Indeks nilai terbesar di values[offset .. offset + length), relatif terhadap offset. */
+    static int argMax(float[] values, int offset, int length) {
+        int best = 0;
+        for (int i = 1; i < length; i++) {
+            if (values[offset + i] > values[offset + best]) best = i;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,141 @@
+package com.trafficsignsclassification;
+
+import org.junit.Test;
+import org.tensorflow.lite.DataType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Menguji hash dan perilaku LRU/TTL ClassificationCache pada buffer input float 32x32, tanpa
+ * interpreter TFLite.
+ */
+public class ClassificationCacheTest {
+
+    private static final int SIZE = 32;
+    private static final int CLASSES = 3;
+    private static final long TTL = 1_000L;
+    // Sama dengan RESULT_CACHE_MAX_DISTANCE di MainActivity
+    private static final int DEFAULT_MAX_DISTANCE = 2;
+
+    @Test
+    public void similarCrop_hitsStoredScores() {
+        ClassificationCache cache = cache(4, 4, ClassificationCache.Hash.DIFFERENCE);
+        ByteBuffer buffer = buffer(2);
+        fill(buffer, 0, 1, 0f);
+        // Noise kecil tidak mengubah urutan rata-rata blok
+        fill(buffer, 1, 1, 0.002f);
+        cache.put(cache.hash(buffer, 0), 0L, new float[]{0.1f, 0.7f, 0.2f}, 0);
+
+        float[] out = new float[2 * CLASSES];
+        assertTrue(cache.lookup(cache.hash(buffer, 1), 10L, out, CLASSES));
+        assertArrayEquals(new float[]{0f, 0f, 0f, 0.1f, 0.7f, 0.2f}, out, 0f);
+        assertEquals(1f, cache.getHitRate(), 0f);
+    }
+
+    @Test
+    public void differentCrop_misses() {
+        for (ClassificationCache.Hash hash : ClassificationCache.Hash.values()) {
+            ClassificationCache cache = cache(4, 4, hash);
+            ByteBuffer buffer = buffer(2);
+            fill(buffer, 0, 1, 0f);
+            fill(buffer, 1, 2, 0f);
+            cache.put(cache.hash(buffer, 0), 0L, new float[CLASSES], 0);
+
+            assertFalse(hash.name(), cache.lookup(cache.hash(buffer, 1), 10L, new float[CLASSES], 0));
+            assertEquals(hash.name(), 0f, cache.getHitRate(), 0f);
+        }
+    }
+
+    @Test
+    public void cropsDifferingOnlyInsideSign_miss() {
+        ClassificationCache cache = cache(4, DEFAULT_MAX_DISTANCE, ClassificationCache.Hash.DIFFERENCE);
+        ByteBuffer buffer = buffer(2);
+        // Bingkai rambu sama, hanya goresan "angka" di tengah yang bergeser (misalnya 30 vs 50)
+        fillSign(buffer, 0, 11);
+        fillSign(buffer, 1, 18);
+        long first = cache.hash(buffer, 0);
+        long second = cache.hash(buffer, 1);
+        assertTrue(Long.bitCount(first ^ second) > DEFAULT_MAX_DISTANCE);
+
+        cache.put(first, 0L, new float[CLASSES], 0);
+        assertFalse(cache.lookup(second, 10L, new float[CLASSES], 0));
+    }
+
+    @Test
+    public void expiredEntry_misses() {
+        ClassificationCache cache = cache(4, 0, ClassificationCache.Hash.AVERAGE);
+        cache.put(42L, 0L, new float[CLASSES], 0);
+        assertTrue(cache.lookup(42L, TTL, new float[CLASSES], 0));
+        assertFalse(cache.lookup(42L, TTL + 1, new float[CLASSES], 0));
+    }
+
+    @Test
+    public void fullCache_evictsLeastRecentlyUsed() {
+        ClassificationCache cache = cache(2, 0, ClassificationCache.Hash.AVERAGE);
+        cache.put(1L, 0L, new float[]{1f, 0f, 0f}, 0);
+        cache.put(2L, 1L, new float[]{0f, 1f, 0f}, 0);
+        assertTrue(cache.lookup(1L, 2L, new float[CLASSES], 0));
+        cache.put(3L, 3L, new float[]{0f, 0f, 1f}, 0);
+
+        float[] out = new float[CLASSES];
+        assertTrue(cache.lookup(1L, 4L, out, 0));
+        assertArrayEquals(new float[]{1f, 0f, 0f}, out, 0f);
+        assertFalse(cache.lookup(2L, 4L, out, 0));
+        assertTrue(cache.lookup(3L, 4L, out, 0));
+    }
+
+    @Test
+    public void lookup_picksNearestWithinRadius() {
+        ClassificationCache cache = cache(4, 2, ClassificationCache.Hash.AVERAGE);
+        cache.put(0b0000L, 0L, new float[]{1f, 0f, 0f}, 0);
+        cache.put(0b0111L, 0L, new float[]{0f, 1f, 0f}, 0);
+
+        float[] out = new float[CLASSES];
+        assertTrue(cache.lookup(0b0110L, 1L, out, 0));
+        assertArrayEquals(new float[]{0f, 1f, 0f}, out, 0f);
+        assertFalse(cache.lookup(0b11111000L, 1L, out, 0));
+    }
+
+    private static ClassificationCache cache(int capacity, int maxDistance, ClassificationCache.Hash hash) {
+        return new ClassificationCache(SIZE, SIZE, DataType.FLOAT32, CLASSES, capacity, maxDistance, TTL, hash);
+    }
+
+    private static ByteBuffer buffer(int samples) {
+        return ByteBuffer.allocateDirect(samples * SIZE * SIZE * 4).order(ByteOrder.nativeOrder());
+    }
+
+    /** Latar datar dengan cincin terang dan goresan gelap 3x8 piksel mulai kolom strokeX. */
+    private static void fillSign(ByteBuffer buffer, int slot, int strokeX) {
+        float center = (SIZE - 1) / 2f;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                float radius = (float) Math.hypot(x - center, y - center);
+                float value = radius >= 12f && radius < 15f ? 0.9f : 0.5f;
+                if (y >= 12 && y < 20 && x >= strokeX && x < strokeX + 3) {
+                    value = 0.1f;
+                }
+                buffer.putFloat(((slot * SIZE + y) * SIZE + x) * 4, value);
+            }
+        }
+    }
+
+    /** Blok 4x4 dengan level acak per seed, ditambah noise per piksel sebesar noise. */
+    private static void fill(ByteBuffer buffer, int slot, long seed, float noise) {
+        Random levels = new Random(seed);
+        float[] blockLevels = new float[(SIZE / 4) * (SIZE / 4)];
+        for (int i = 0; i < blockLevels.length; i++) {
+            blockLevels[i] = levels.nextFloat();
+        }
+        Random jitter = new Random(seed * 31 + slot);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                float value = blockLevels[(y / 4) * (SIZE / 4) + x / 4] + (jitter.nextFloat() - 0.5f) * noise;
+                buffer.putFloat(((slot * SIZE + y) * SIZE + x) * 4, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.trafficsignsclassification;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Membandingkan FusedPreprocessKernel dengan implementasi acuan presisi double (rata-rata area
+ * dari irisan piksel, lalu equalizeHist seperti OpenCV). Perbandingan langsung dengan OpenCV
+ * ada di modul benchmark karena library native OpenCV tidak tersedia di unit test.
+ */
+public class FusedPreprocessKernelTest {
+
+    private static final int SIZE = 32;
+
+    @Test
+    public void integerScale_matchesBlockAverage() {
+        for (int scale : new int[]{1, 2, 3, 8}) {
+            int cropSize = SIZE * scale;
+            byte[] crop = randomCrop(cropSize, scale);
+            assertArrayEquals("skala " + scale, reference(crop, cropSize), run(crop, cropSize), 0f);
+        }
+    }
+
+    @Test
+    public void fractionalScale_matchesReferenceWithinTolerance() {
+        for (int cropSize : new int[]{240, 241, 100, 37}) {
+            byte[] crop = randomCrop(cropSize, cropSize);
+            float[] expected = reference(crop, cropSize);
+            float[] actual = run(crop, cropSize);
+            // Akumulasi float vs double hanya berbeda pada nilai yang jatuh tepat di batas pembulatan
+            int mismatches = 0;
+            for (int i = 0; i < expected.length; i++) {
+                if (Math.abs(expected[i] - actual[i]) > 1e-6f) {
+                    mismatches++;
+                }
+            }
+            assertTrue("crop " + cropSize + ": " + mismatches + " piksel berbeda", mismatches <= expected.length / 100);
+        }
+    }
+
+    @Test
+    public void flatCrop_keepsItsValue() {
+        byte[] crop = new byte[240 * 240];
+        Arrays.fill(crop, (byte) 200);
+        for (float value : run(crop, 240)) {
+            // Sama seperti convertTo: nilai dikali skala float 1/255, bukan dibagi 255
+            assertEquals(200 * (1f / 255f), value, 0f);
+        }
+    }
+
+    @Test
+    public void equalizedOutput_spansFullRange() {
+        byte[] crop = randomCrop(240, 240);
+        float min = 1f;
+        float max = 0f;
+        for (float value : run(crop, 240)) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        assertEquals(0f, min, 0f);
+        assertEquals(1f, max, 0f);
+    }
+
+    @Test
+    public void floatBuffer_writesOnlyItsSlot() {
+        FusedPreprocessKernel kernel = new FusedPreprocessKernel(SIZE, SIZE);
+        FloatBuffer buffer = ByteBuffer.allocateDirect(3 * SIZE * SIZE * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        for (int i = 0; i < buffer.capacity(); i++) {
+            buffer.put(i, -1f);
+        }
+        byte[] crop = randomCrop(240, 240);
+        kernel.process(crop, 240, 240, buffer, SIZE * SIZE);
+
+        float[] expected = run(crop, 240);
+        for (int i = 0; i < buffer.capacity(); i++) {
+            int slotIndex = i - SIZE * SIZE;
+            float want = slotIndex >= 0 && slotIndex < SIZE * SIZE ? expected[slotIndex] : -1f;
+            assertEquals("index " + i, want, buffer.get(i), 0f);
+        }
+    }
+
+    @Test
+    public void quantizedOutput_looksUpEqualizedLevels() {
+        FusedPreprocessKernel kernel = new FusedPreprocessKernel(SIZE, SIZE);
+        // Tabel sembarang: level v dipetakan ke v - 128 seperti input INT8 dengan scale 1/255
+        byte[] quantization = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            quantization[i] = (byte) (i - 128);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(2 * SIZE * SIZE);
+        byte[] crop = randomCrop(241, 241);
+        kernel.process(crop, 241, 241, quantization, buffer, SIZE * SIZE);
+
+        float[] expected = run(crop, 241);
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            assertEquals("index " + i, 0, buffer.get(i));
+            assertEquals("index " + i, quantization[Math.round(expected[i] * 255)], buffer.get(SIZE * SIZE + i));
+        }
+    }
+
+    @Test
+    public void changingCropSize_rebuildsTables() {
+        FusedPreprocessKernel kernel = new FusedPreprocessKernel(SIZE, SIZE);
+        float[] out = new float[SIZE * SIZE];
+        for (int cropSize : new int[]{240, 120, 50, 240}) {
+            byte[] crop = randomCrop(cropSize, cropSize);
+            kernel.process(crop, cropSize, cropSize, out, 0);
+            assertArrayEquals("crop " + cropSize, run(crop, cropSize), out, 0f);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shortCropBuffer_isRejected() {
+        new FusedPreprocessKernel(SIZE, SIZE).process(new byte[100], 240, 240, new float[SIZE * SIZE], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shortOutputBuffer_isRejected() {
+        new FusedPreprocessKernel(SIZE, SIZE).process(new byte[240 * 240], 240, 240, new float[SIZE * SIZE], 1);
+    }
+
+    private static float[] run(byte[] crop, int cropSize) {
+        float[] out = new float[SIZE * SIZE];
+        new FusedPreprocessKernel(SIZE, SIZE).process(crop, cropSize, cropSize, out, 0);
+        return out;
+    }
+
+    /** Gradien dengan noise, supaya histogram hasil resize tidak terlalu sempit. */
+    private static byte[] randomCrop(int cropSize, long seed) {
+        Random random = new Random(seed);
+        byte[] crop = new byte[cropSize * cropSize];
+        for (int y = 0; y < cropSize; y++) {
+            for (int x = 0; x < cropSize; x++) {
+                int value = (x + y) * 255 / (2 * cropSize) + random.nextInt(64) - 32;
+                crop[y * cropSize + x] = (byte) Math.max(0, Math.min(255, value));
+            }
+        }
+        return crop;
+    }
+
+    private static float[] reference(byte[] crop, int cropSize) {
+        double scale = (double) cropSize / SIZE;
+        int[] resized = new int[SIZE * SIZE];
+        for (int dy = 0; dy < SIZE; dy++) {
+            for (int dx = 0; dx < SIZE; dx++) {
+                double sum = 0;
+                for (int sy = (int) (dy * scale); sy < Math.min(cropSize, Math.ceil((dy + 1) * scale)); sy++) {
+                    double wy = overlap(sy, dy * scale, (dy + 1) * scale);
+                    for (int sx = (int) (dx * scale); sx < Math.min(cropSize, Math.ceil((dx + 1) * scale)); sx++) {
+                        sum += wy * overlap(sx, dx * scale, (dx + 1) * scale) * (crop[sy * cropSize + sx] & 0xFF);
+                    }
+                }
+                double mean = sum / (scale * scale);
+                // OpenCV membulatkan rata-rata 2x2 ke atas, skala lain ke genap terdekat
+                resized[dy * SIZE + dx] = (int) (scale == 2 ? Math.floor(mean + 0.5) : Math.rint(mean));
+            }
+        }
+
+        int[] histogram = new int[256];
+        for (int value : resized) {
+            histogram[value]++;
+        }
+        int first = 0;
+        while (histogram[first] == 0) {
+            first++;
+        }
+        int[] lut = new int[256];
+        float lutScale = 255f / (resized.length - histogram[first]);
+        int sum = 0;
+        for (int i = first + 1; i < 256; i++) {
+            sum += histogram[i];
+            lut[i] = Math.min(255, (int) Math.rint(sum * lutScale));
+        }
+        float[] out = new float[resized.length];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = lut[resized[i]] * (1f / 255f);
+        }
+        return out;
+    }
+
+    private static double overlap(int pixel, double start, double end) {
+        return Math.max(0, Math.min(pixel + 1, end) - Math.max(pixel, start));
+    }
+}
@@ -0,0 +1,130 @@
+package com.trafficsignsclassification.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+/**
+ * Frame YUV rekaman (NV21) yang dipakai sebagai fixture benchmark.
+ *
+ * Rekaman diletakkan di src/jmh/resources/frames dengan nama "nama_LEBARxTINGGI_rROTASI.nv21"
+ * dan dipilih lewat parameter JMH "fixture". Frame sintetis yang deterministik tetap tersedia
+ * sebagai pembanding dengan statistik yang terkendali.
+ */
+public final class FrameFixtures {
+
+    /** Rambu pekerjaan jalan dari kamera (lihat README.txt di folder frames). */
+    public static final String ROAD_WORK = "pekerjaan_jalan_640x480_r0";
+    /** Rambu jalan licin dari kamera, dengan latar dan pencahayaan tidak rata. */
+    public static final String SLIPPERY_ROAD = "jalan_licin_640x480_r0";
+    public static final String SYNTHETIC = "synthetic_640x480_r90";
+
+    public static final class Frame {
+        public final String name;
+        public final byte[] nv21;
+        public final int width;
+        public final int height;
+        public final int rotation;
+
+        Frame(String name, byte[] nv21, int width, int height, int rotation) {
+            this.name = name;
+            this.nv21 = nv21;
+            this.width = width;
+            this.height = height;
+            this.rotation = rotation;
+        }
+    }
+
+    private FrameFixtures() {
+    }
+
+    /** Memuat fixture berdasarkan nama (tanpa ekstensi), atau frame sintetis untuk SYNTHETIC. */
+    public static Frame load(String name) throws IOException {
+        if (SYNTHETIC.equals(name)) {
+            return synthetic(640, 480, 90, 42);
+        }
+        try (InputStream in = FrameFixtures.class.getResourceAsStream("/frames/" + name + ".nv21")) {
+            if (in == null) {
+                throw new IOException("Fixture tidak ditemukan: " + name);
+            }
+            String[] parts = name.split("_");
+            String[] size = parts[parts.length - 2].split("x");
+            int width = Integer.parseInt(size[0]);
+            int height = Integer.parseInt(size[1]);
+            int rotation = Integer.parseInt(parts[parts.length - 1].substring(1));
+            byte[] data = readAll(in);
+            if (data.length < width * height * 3 / 2) {
+                throw new IOException("Ukuran fixture tidak sesuai: " + name);
+            }
+            return new Frame(name, data, width, height, rotation);
+        }
+    }
+
+    /**
+     * Frame sintetis: latar gradien bernoise dengan rambu bulat (lingkaran merah, isi putih,
+     * angka gelap) di tengah, dikonversi ke NV21 memakai koefisien BT.601.
+     */
+    public static Frame synthetic(int width, int height, int rotation, long seed) {
+        Random random = new Random(seed);
+        byte[] nv21 = new byte[width * height * 3 / 2];
+        int cx = width / 2;
+        int cy = height / 2;
+        int radius = Math.min(width, height) / 6;
+
+        int[] r = new int[width * height];
+        int[] g = new int[width * height];
+        int[] b = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                int base = 60 + (x * 80 / width) + (y * 60 / height);
+                int noise = random.nextInt(21) - 10;
+                int red = base + noise, green = base + 10 + noise, blue = base + 30 + noise;
+
+                int dx = x - cx, dy = y - cy;
+                int d2 = dx * dx + dy * dy;
+                if (d2 < radius * radius) {
+                    int inner = radius * 4 / 5;
+                    if (d2 >= inner * inner) {
+                        red = 200 + noise; green = 30 + noise; blue = 40 + noise;
+                    } else if (Math.abs(dx) < radius / 3 && Math.abs(dy) < radius / 2 && (dx / 6 + dy / 6) % 2 == 0) {
+                        red = green = blue = 30 + noise;
+                    } else {
+                        red = green = blue = 230 + noise;
+                    }
+                }
+                r[i] = clamp(red);
+                g[i] = clamp(green);
+                b[i] = clamp(blue);
+                nv21[i] = (byte) clamp((77 * r[i] + 150 * g[i] + 29 * b[i]) >> 8);
+            }
+        }
+        int uvOffset = width * height;
+        for (int y = 0; y < height; y += 2) {
+            for (int x = 0; x < width; x += 2) {
+                int i = y * width + x;
+                int u = ((-43 * r[i] - 85 * g[i] + 128 * b[i]) >> 8) + 128;
+                int v = ((128 * r[i] - 107 * g[i] - 21 * b[i]) >> 8) + 128;
+                int o = uvOffset + (y / 2) * width + x;
+                nv21[o] = (byte) clamp(v);
+                nv21[o + 1] = (byte) clamp(u);
+            }
+        }
+        return new Frame("synthetic_" + width + "x" + height + "_r" + rotation, nv21, width, height, rotation);
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[16 * 1024];
+        int n;
+        while ((n = in.read(chunk)) > 0) {
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
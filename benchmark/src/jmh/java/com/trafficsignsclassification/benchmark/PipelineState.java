@@ -0,0 +1,145 @@
+package com.trafficsignsclassification.benchmark;
+
+import com.trafficsignsclassification.FusedPreprocessKernel;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfInt;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Data dan buffer untuk satu frame fixture. Semua tahap dijalankan sekali saat setup agar
+ * setiap benchmark per tahap mendapat input yang valid dari tahap sebelumnya.
+ */
+@State(Scope.Thread)
+public class PipelineState {
+
+    public static final int INPUT_SIZE = 32;
+
+    @Param({FrameFixtures.ROAD_WORK, FrameFixtures.SLIPPERY_ROAD, FrameFixtures.SYNTHETIC})
+    public String fixture;
+
+    public FrameFixtures.Frame frame;
+    public int cropSize;
+    public int cropLeft;
+    public int cropTop;
+    public Rect cropRect;
+    public Size inputSize;
+    public MatOfInt jpegParams;
+
+    // Jalur lama (toBitmap -> rotate -> crop -> cvtColor -> equalizeHist -> resize -> convertTo)
+    public Mat nv21Mat;
+    public Mat bgrMat;
+    public MatOfByte jpegBytes;
+    public Mat decodedMat;
+    public Mat rotatedMat;
+    public Mat cropMat;
+    public Mat grayMat;
+    public Mat equalizedMat;
+    public Mat resizedMat;
+    public Mat normalizedMat;
+
+    // Jalur Y plane: crop dari luma, hasil akhir ditulis ke Mat yang membungkus direct buffer
+    public ByteBuffer inputBuffer;
+    public Mat inputMat;
+    public Mat lumaCropMat;
+
+    // Buffer untuk implementasi Java murni
+    public byte[] cropBytes;
+    public byte[] equalizedBytes;
+    public byte[] resizedBytes;
+    public float[] inputFloats;
+    public int[] histogram = new int[256];
+    public byte[] lut = new byte[256];
+
+    // Kernel fused aplikasi (resize area -> equalize -> normalisasi) dan padanan OpenCV-nya
+    public FusedPreprocessKernel fusedKernel;
+    public Mat areaMat;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        nu.pattern.OpenCV.loadLocally();
+
+        frame = FrameFixtures.load(fixture);
+        boolean swapped = frame.rotation == 90 || frame.rotation == 270;
+        int rotatedWidth = swapped ? frame.height : frame.width;
+        int rotatedHeight = swapped ? frame.width : frame.height;
+        cropSize = Math.min(rotatedWidth, rotatedHeight) / 2;
+        cropLeft = (rotatedWidth - cropSize) / 2;
+        cropTop = (rotatedHeight - cropSize) / 2;
+        cropRect = new Rect(cropLeft, cropTop, cropSize, cropSize);
+        inputSize = new Size(INPUT_SIZE, INPUT_SIZE);
+        jpegParams = new MatOfInt(Imgcodecs.IMWRITE_JPEG_QUALITY, 100);
+
+        nv21Mat = new Mat(frame.height * 3 / 2, frame.width, CvType.CV_8UC1);
+        nv21Mat.put(0, 0, frame.nv21);
+        bgrMat = new Mat();
+        jpegBytes = new MatOfByte();
+        decodedMat = new Mat();
+        rotatedMat = new Mat();
+        cropMat = new Mat();
+        grayMat = new Mat();
+        equalizedMat = new Mat();
+        resizedMat = new Mat();
+        normalizedMat = new Mat();
+
+        inputBuffer = ByteBuffer.allocateDirect(INPUT_SIZE * INPUT_SIZE * 4).order(ByteOrder.nativeOrder());
+        inputMat = new Mat(INPUT_SIZE, INPUT_SIZE, CvType.CV_32FC1, inputBuffer);
+        lumaCropMat = new Mat(cropSize, cropSize, CvType.CV_8UC1);
+
+        cropBytes = new byte[cropSize * cropSize];
+        equalizedBytes = new byte[cropSize * cropSize];
+        resizedBytes = new byte[INPUT_SIZE * INPUT_SIZE];
+        inputFloats = new float[INPUT_SIZE * INPUT_SIZE];
+        fusedKernel = new FusedPreprocessKernel(INPUT_SIZE, INPUT_SIZE);
+        areaMat = new Mat();
+
+        // Isi semua Mat perantara sekali
+        Imgproc.cvtColor(nv21Mat, bgrMat, Imgproc.COLOR_YUV2BGR_NV21);
+        Imgcodecs.imencode(".jpg", bgrMat, jpegBytes, jpegParams);
+        decodedMat = Imgcodecs.imdecode(jpegBytes, Imgcodecs.IMREAD_COLOR);
+        rotate(decodedMat, rotatedMat, frame.rotation);
+        rotatedMat.submat(cropRect).copyTo(cropMat);
+        Imgproc.cvtColor(cropMat, grayMat, Imgproc.COLOR_BGR2GRAY);
+        Imgproc.equalizeHist(grayMat, equalizedMat);
+        Imgproc.resize(equalizedMat, resizedMat, inputSize);
+        resizedMat.convertTo(normalizedMat, CvType.CV_32F, 1.0 / 255);
+
+        ReferenceStages.cropRotate(frame.nv21, frame.width, frame.height, frame.rotation,
+                cropLeft, cropTop, cropSize, cropBytes);
+        ReferenceStages.equalizeHist(cropBytes, cropBytes.length, equalizedBytes, histogram, lut);
+        ReferenceStages.resizeBilinear(equalizedBytes, cropSize, cropSize, resizedBytes, INPUT_SIZE, INPUT_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Mat[] mats = {nv21Mat, bgrMat, jpegBytes, decodedMat, rotatedMat, cropMat, grayMat,
+                equalizedMat, resizedMat, normalizedMat, inputMat, lumaCropMat, areaMat, jpegParams};
+        for (Mat mat : mats) {
+            mat.release();
+        }
+    }
+
+    public static void rotate(Mat src, Mat dst, int rotation) {
+        switch (rotation) {
+            case 90:  Core.rotate(src, dst, Core.ROTATE_90_CLOCKWISE); break;
+            case 180: Core.rotate(src, dst, Core.ROTATE_180); break;
+            case 270: Core.rotate(src, dst, Core.ROTATE_90_COUNTERCLOCKWISE); break;
+            default:  src.copyTo(dst); break;
+        }
+    }
+}
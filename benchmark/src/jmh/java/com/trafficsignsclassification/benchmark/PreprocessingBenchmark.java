@@ -0,0 +1,183 @@
+package com.trafficsignsclassification.benchmark;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark setiap tahap preprocessing secara terpisah dan pipeline lengkapnya.
+ * Tahap "toBitmap" di aplikasi (NV21 -> JPEG kualitas 100 -> decode) diwakili dengan
+ * cvtColor NV21 -> BGR lalu imencode/imdecode milik OpenCV desktop.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreprocessingBenchmark {
+
+    // --- Tahap jalur lama (OpenCV) ---
+
+    @Benchmark
+    public int stageJpegRoundTrip(PipelineState s) {
+        Mat decoded = jpegRoundTrip(s);
+        int rows = decoded.rows();
+        decoded.release();
+        return rows;
+    }
+
+    @Benchmark
+    public Mat stageRotate(PipelineState s) {
+        PipelineState.rotate(s.decodedMat, s.rotatedMat, s.frame.rotation);
+        return s.rotatedMat;
+    }
+
+    @Benchmark
+    public Mat stageCrop(PipelineState s) {
+        Mat roi = s.rotatedMat.submat(s.cropRect);
+        roi.copyTo(s.cropMat);
+        roi.release();
+        return s.cropMat;
+    }
+
+    @Benchmark
+    public Mat stageCvtColor(PipelineState s) {
+        Imgproc.cvtColor(s.cropMat, s.grayMat, Imgproc.COLOR_BGR2GRAY);
+        return s.grayMat;
+    }
+
+    @Benchmark
+    public Mat stageEqualizeHist(PipelineState s) {
+        Imgproc.equalizeHist(s.grayMat, s.equalizedMat);
+        return s.equalizedMat;
+    }
+
+    @Benchmark
+    public Mat stageResize(PipelineState s) {
+        Imgproc.resize(s.equalizedMat, s.resizedMat, s.inputSize);
+        return s.resizedMat;
+    }
+
+    @Benchmark
+    public Mat stageConvertTo(PipelineState s) {
+        s.resizedMat.convertTo(s.normalizedMat, CvType.CV_32F, 1.0 / 255);
+        return s.normalizedMat;
+    }
+
+    @Benchmark
+    public float[] stagePerPixelGet(PipelineState s) {
+        // Loop lama: satu Mat.get(i, j) per piksel
+        float[] input = s.inputFloats;
+        for (int i = 0; i < PipelineState.INPUT_SIZE; i++) {
+            for (int j = 0; j < PipelineState.INPUT_SIZE; j++) {
+                input[i * PipelineState.INPUT_SIZE + j] = (float) s.normalizedMat.get(i, j)[0];
+            }
+        }
+        return input;
+    }
+
+    @Benchmark
+    public float[] stageBulkGet(PipelineState s) {
+        s.normalizedMat.get(0, 0, s.inputFloats);
+        return s.inputFloats;
+    }
+
+    // --- Tahap Java murni ---
+
+    @Benchmark
+    public byte[] javaCropRotate(PipelineState s) {
+        ReferenceStages.cropRotate(s.frame.nv21, s.frame.width, s.frame.height, s.frame.rotation,
+                s.cropLeft, s.cropTop, s.cropSize, s.cropBytes);
+        return s.cropBytes;
+    }
+
+    @Benchmark
+    public byte[] javaEqualizeHist(PipelineState s) {
+        ReferenceStages.equalizeHist(s.cropBytes, s.cropBytes.length, s.equalizedBytes, s.histogram, s.lut);
+        return s.equalizedBytes;
+    }
+
+    @Benchmark
+    public byte[] javaResize(PipelineState s) {
+        ReferenceStages.resizeBilinear(s.equalizedBytes, s.cropSize, s.cropSize,
+                s.resizedBytes, PipelineState.INPUT_SIZE, PipelineState.INPUT_SIZE);
+        return s.resizedBytes;
+    }
+
+    @Benchmark
+    public float[] javaNormalize(PipelineState s) {
+        ReferenceStages.normalize(s.resizedBytes, s.resizedBytes.length, s.inputFloats);
+        return s.inputFloats;
+    }
+
+    @Benchmark
+    public float[] javaFusedKernel(PipelineState s) {
+        // Resize area + equalize + normalisasi dari crop yang sudah ada, satu lintasan
+        s.fusedKernel.process(s.cropBytes, s.cropSize, s.cropSize, s.inputFloats, 0);
+        return s.inputFloats;
+    }
+
+    // --- Pipeline lengkap ---
+
+    @Benchmark
+    public void pipelineLegacy(PipelineState s, Blackhole bh) {
+        Mat decoded = jpegRoundTrip(s);
+        PipelineState.rotate(decoded, s.rotatedMat, s.frame.rotation);
+        decoded.release();
+        bh.consume(stageCrop(s));
+        bh.consume(stageCvtColor(s));
+        bh.consume(stageEqualizeHist(s));
+        bh.consume(stageResize(s));
+        bh.consume(stageConvertTo(s));
+        bh.consume(stagePerPixelGet(s));
+    }
+
+    @Benchmark
+    public Mat pipelineLumaPlane(PipelineState s) {
+        // Jalur aplikasi saat ini: crop dari Y plane, lalu OpenCV, ditulis ke direct buffer
+        ReferenceStages.cropRotate(s.frame.nv21, s.frame.width, s.frame.height, s.frame.rotation,
+                s.cropLeft, s.cropTop, s.cropSize, s.cropBytes);
+        s.lumaCropMat.put(0, 0, s.cropBytes);
+        Imgproc.equalizeHist(s.lumaCropMat, s.lumaCropMat);
+        Imgproc.resize(s.lumaCropMat, s.resizedMat, s.inputSize);
+        s.resizedMat.convertTo(s.inputMat, CvType.CV_32F, 1.0 / 255);
+        return s.inputMat;
+    }
+
+    @Benchmark
+    public Mat pipelineLumaPlaneArea(PipelineState s) {
+        // Urutan yang sama dengan kernel fused, dikerjakan OpenCV: pembanding kecepatan yang adil
+        ReferenceStages.cropRotate(s.frame.nv21, s.frame.width, s.frame.height, s.frame.rotation,
+                s.cropLeft, s.cropTop, s.cropSize, s.cropBytes);
+        s.lumaCropMat.put(0, 0, s.cropBytes);
+        Imgproc.resize(s.lumaCropMat, s.areaMat, s.inputSize, 0, 0, Imgproc.INTER_AREA);
+        Imgproc.equalizeHist(s.areaMat, s.areaMat);
+        s.areaMat.convertTo(s.inputMat, CvType.CV_32F, 1.0 / 255);
+        return s.inputMat;
+    }
+
+    @Benchmark
+    public float[] pipelineFused(PipelineState s) {
+        javaCropRotate(s);
+        return javaFusedKernel(s);
+    }
+
+    @Benchmark
+    public float[] pipelineJava(PipelineState s) {
+        javaCropRotate(s);
+        javaEqualizeHist(s);
+        javaResize(s);
+        return javaNormalize(s);
+    }
+
+    private static Mat jpegRoundTrip(PipelineState s) {
+        Imgproc.cvtColor(s.nv21Mat, s.bgrMat, Imgproc.COLOR_YUV2BGR_NV21);
+        Imgcodecs.imencode(".jpg", s.bgrMat, s.jpegBytes, s.jpegParams);
+        return Imgcodecs.imdecode(s.jpegBytes, Imgcodecs.IMREAD_COLOR);
+    }
+}
@@ -0,0 +1,93 @@
+package com.trafficsignsclassification.benchmark;
+
+/**
+ * Implementasi Java murni untuk setiap tahap preprocessing, mengikuti semantik OpenCV
+ * (equalizeHist, resize INTER_LINEAR, convertTo dengan skala 1/255). Dipakai sebagai
+ * pembanding strategi preprocessing lain dan tidak mengalokasikan memori per pemanggilan.
+ */
+public final class ReferenceStages {
+
+    private ReferenceStages() {
+    }
+
+    /**
+     * Crop persegi dari plane luma setelah dirotasi searah jarum jam, sama seperti
+     * FrameConverter di aplikasi (di sini row stride = lebar dan pixel stride = 1).
+     */
+    public static void cropRotate(byte[] luma, int width, int height, int rotation,
+                                  int left, int top, int size, byte[] dst) {
+        int out = 0;
+        for (int r = 0; r < size; r++) {
+            int yr = top + r;
+            for (int c = 0; c < size; c++) {
+                int xr = left + c;
+                int x, y;
+                switch (rotation) {
+                    case 90:  x = yr;             y = height - 1 - xr; break;
+                    case 180: x = width - 1 - xr; y = height - 1 - yr; break;
+                    case 270: x = width - 1 - yr; y = xr;              break;
+                    default:  x = xr;             y = yr;              break;
+                }
+                dst[out++] = luma[y * width + x];
+            }
+        }
+    }
+
+    /** Sama dengan cv::equalizeHist untuk gambar 8-bit satu channel. */
+    public static void equalizeHist(byte[] src, int length, byte[] dst, int[] histogram, byte[] lut) {
+        java.util.Arrays.fill(histogram, 0);
+        for (int i = 0; i < length; i++) {
+            histogram[src[i] & 0xFF]++;
+        }
+        int first = 0;
+        while (histogram[first] == 0) first++;
+        if (histogram[first] == length) {
+            java.util.Arrays.fill(dst, 0, length, (byte) first);
+            return;
+        }
+        float scale = 255f / (length - histogram[first]);
+        int sum = 0;
+        lut[first] = 0;
+        for (int i = first + 1; i < 256; i++) {
+            sum += histogram[i];
+            lut[i] = (byte) Math.min(255, Math.round(sum * scale));
+        }
+        for (int i = 0; i < length; i++) {
+            dst[i] = lut[src[i] & 0xFF];
+        }
+    }
+
+    /** Resize bilinear dengan pemetaan titik tengah piksel seperti cv::resize(INTER_LINEAR). */
+    public static void resizeBilinear(byte[] src, int srcWidth, int srcHeight,
+                                      byte[] dst, int dstWidth, int dstHeight) {
+        float scaleX = (float) srcWidth / dstWidth;
+        float scaleY = (float) srcHeight / dstHeight;
+        int out = 0;
+        for (int dy = 0; dy < dstHeight; dy++) {
+            float fy = (dy + 0.5f) * scaleY - 0.5f;
+            int y0 = (int) Math.floor(fy);
+            float wy = fy - y0;
+            if (y0 < 0) { y0 = 0; wy = 0; }
+            int y1 = Math.min(y0 + 1, srcHeight - 1);
+            if (y0 >= srcHeight - 1) { y0 = srcHeight - 1; wy = 0; }
+            for (int dx = 0; dx < dstWidth; dx++) {
+                float fx = (dx + 0.5f) * scaleX - 0.5f;
+                int x0 = (int) Math.floor(fx);
+                float wx = fx - x0;
+                if (x0 < 0) { x0 = 0; wx = 0; }
+                int x1 = Math.min(x0 + 1, srcWidth - 1);
+                if (x0 >= srcWidth - 1) { x0 = srcWidth - 1; wx = 0; }
+                float top = (src[y0 * srcWidth + x0] & 0xFF) * (1 - wx) + (src[y0 * srcWidth + x1] & 0xFF) * wx;
+                float bottom = (src[y1 * srcWidth + x0] & 0xFF) * (1 - wx) + (src[y1 * srcWidth + x1] & 0xFF) * wx;
+                dst[out++] = (byte) Math.round(top * (1 - wy) + bottom * wy);
+            }
+        }
+    }
+
+    /** Sama dengan convertTo(CV_32F, 1.0 / 255). */
+    public static void normalize(byte[] src, int length, float[] dst) {
+        for (int i = 0; i < length; i++) {
+            dst[i] = (src[i] & 0xFF) * (1f / 255f);
+        }
+    }
+}
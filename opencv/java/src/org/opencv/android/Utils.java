@@ -90,7 +90,8 @@ public class Utils {
             throw new IllegalArgumentException("bmp == null");
         if (mat == null)
             throw new IllegalArgumentException("mat == null");
-        nBitmapToMat2(bmp, mat.nativeObj, unPremultiplyAlpha);
+        // Opaque bitmaps are not premultiplied, skip the extra pass
+        nBitmapToMat2(bmp, mat.nativeObj, unPremultiplyAlpha && bmp.hasAlpha());
     }
 
     /**
@@ -102,6 +103,61 @@ public class Utils {
         bitmapToMat(bmp, mat, false);
     }
 
+    /**
+     * Converts Android Bitmap into a region of an existing 'CV_8UC4' Mat without reallocating it.
+     * <p>
+     * The Bitmap is written as RGBA with its top-left corner at (x, y); the rest of the Mat is left
+     * untouched. The Mat may also be a submat() of a larger image.
+     * @param bmp is a valid input Bitmap object of the type 'ARGB_8888' or 'RGB_565'.
+     * @param mat is an allocated 'CV_8UC4' Mat large enough to hold the Bitmap at (x, y).
+     * @param unPremultiplyAlpha same as in bitmapToMat(); ignored for opaque bitmaps.
+     */
+    public static void bitmapToMat(Bitmap bmp, Mat mat, int x, int y, boolean unPremultiplyAlpha) {
+        checkTarget(bmp, mat, x, y, CvType.CV_8UC4);
+        UtilsNative.nBitmapToRgba(bmp, mat.nativeObj, x, y, unPremultiplyAlpha && bmp.hasAlpha());
+    }
+
+    /**
+     * Converts Android Bitmap directly to a gray-scale 'CV_8UC1' Mat in one native pass.
+     * <p>
+     * Gives the same result as bitmapToMat() followed by Imgproc.cvtColor(COLOR_RGBA2GRAY), without the
+     * intermediate 4-channel Mat. The output Mat is (re)allocated only if its size or type differ.
+     * @param bmp is a valid input Bitmap object of the type 'ARGB_8888' or 'RGB_565'.
+     * @param gray is a valid output Mat object, it will be reallocated if needed, so it may be empty.
+     */
+    public static void bitmapToGray(Bitmap bmp, Mat gray) {
+        if (bmp == null)
+            throw new IllegalArgumentException("bmp == null");
+        if (gray == null)
+            throw new IllegalArgumentException("gray == null");
+        gray.create(bmp.getHeight(), bmp.getWidth(), CvType.CV_8UC1);
+        bitmapToGray(bmp, gray, 0, 0, false);
+    }
+
+    /**
+     * Converts Android Bitmap to gray-scale into a region of an existing 'CV_8UC1' Mat without reallocating it.
+     * @param bmp is a valid input Bitmap object of the type 'ARGB_8888' or 'RGB_565'.
+     * @param gray is an allocated 'CV_8UC1' Mat large enough to hold the Bitmap at (x, y).
+     * @param unPremultiplyAlpha whether to convert alpha premultiplied pixels back before computing the gray
+     *        value, like bitmapToMat(); ignored for opaque and 'RGB_565' bitmaps.
+     */
+    public static void bitmapToGray(Bitmap bmp, Mat gray, int x, int y, boolean unPremultiplyAlpha) {
+        checkTarget(bmp, gray, x, y, CvType.CV_8UC1);
+        UtilsNative.nBitmapToGray(bmp, gray.nativeObj, x, y, unPremultiplyAlpha && bmp.hasAlpha());
+    }
+
+    private static void checkTarget(Bitmap bmp, Mat mat, int x, int y, int type) {
+        if (bmp == null)
+            throw new IllegalArgumentException("bmp == null");
+        if (mat == null)
+            throw new IllegalArgumentException("mat == null");
+        if (mat.type() != type)
+            throw new IllegalArgumentException("Mat type should be " + CvType.typeToString(type) + ": " + mat);
+        if (x < 0 || y < 0 || x + bmp.getWidth() > mat.cols() || y + bmp.getHeight() > mat.rows())
+            throw new IllegalArgumentException("Bitmap " + bmp.getWidth() + "x" + bmp.getHeight() +
+                    " does not fit at (" + x + ", " + y + ") into " + mat);
+    }
+
 
     /**
      * Converts OpenCV Mat to Android Bitmap.
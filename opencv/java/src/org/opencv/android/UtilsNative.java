@@ -0,0 +1,19 @@
+package org.opencv.android;
+
+/**
+ * Bitmap converters of the opencv_java_ext library, loaded on first use. They write through the
+ * cv::Mat data pointer and never allocate, so the destination must already have its final size.
+ */
+final class UtilsNative {
+
+    static {
+        System.loadLibrary("opencv_java_ext");
+    }
+
+    private UtilsNative() {
+    }
+
+    static native void nBitmapToGray(Object bitmap, long m_addr, int x, int y, boolean unPremultiplyAlpha);
+
+    static native void nBitmapToRgba(Object bitmap, long m_addr, int x, int y, boolean unPremultiplyAlpha);
+}
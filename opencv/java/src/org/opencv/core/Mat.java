@@ -1,17 +1,26 @@
 package org.opencv.core;
 
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ReadOnlyBufferException;
 
 // C++: class Mat
 //javadoc: Mat
-public class Mat {
+public class Mat implements AutoCloseable {
 
     public final long nativeObj;
+    private final MatCleaner.Ref cleanup;
+    // Set by close(); nativeObj then points to freed memory
+    private volatile boolean closed;
 
     public Mat(long addr) {
         if (addr == 0)
             throw new UnsupportedOperationException("Native object address is NULL");
         nativeObj = addr;
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     //
@@ -21,6 +30,7 @@ public class Mat {
     // javadoc: Mat::Mat()
     public Mat() {
         nativeObj = n_Mat();
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     //
@@ -30,6 +40,7 @@ public class Mat {
     // javadoc: Mat::Mat(rows, cols, type)
     public Mat(int rows, int cols, int type) {
         nativeObj = n_Mat(rows, cols, type);
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     //
@@ -39,6 +50,7 @@ public class Mat {
     // javadoc: Mat::Mat(rows, cols, type, data)
     public Mat(int rows, int cols, int type, ByteBuffer data) {
         nativeObj = n_Mat(rows, cols, type, data);
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     //
@@ -48,6 +60,7 @@ public class Mat {
     // javadoc: Mat::Mat(rows, cols, type, data, step)
     public Mat(int rows, int cols, int type, ByteBuffer data, long step) {
         nativeObj = n_Mat(rows, cols, type, data, step);
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     //
@@ -57,6 +70,7 @@ public class Mat {
     // javadoc: Mat::Mat(size, type)
     public Mat(Size size, int type) {
         nativeObj = n_Mat(size.width, size.height, type);
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     //
@@ -66,6 +80,7 @@ public class Mat {
     // javadoc: Mat::Mat(sizes, type)
     public Mat(int[] sizes, int type) {
         nativeObj = n_Mat(sizes.length, sizes, type);
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     //
@@ -75,6 +90,7 @@ public class Mat {
     // javadoc: Mat::Mat(rows, cols, type, s)
     public Mat(int rows, int cols, int type, Scalar s) {
         nativeObj = n_Mat(rows, cols, type, s.val[0], s.val[1], s.val[2], s.val[3]);
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     //
@@ -84,6 +100,7 @@ public class Mat {
     // javadoc: Mat::Mat(size, type, s)
     public Mat(Size size, int type, Scalar s) {
         nativeObj = n_Mat(size.width, size.height, type, s.val[0], s.val[1], s.val[2], s.val[3]);
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     //
@@ -93,6 +110,7 @@ public class Mat {
     // javadoc: Mat::Mat(sizes, type, s)
     public Mat(int[] sizes, int type, Scalar s) {
         nativeObj = n_Mat(sizes.length, sizes, type, s.val[0], s.val[1], s.val[2], s.val[3]);
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     //
@@ -102,11 +120,13 @@ public class Mat {
     // javadoc: Mat::Mat(m, rowRange, colRange)
     public Mat(Mat m, Range rowRange, Range colRange) {
         nativeObj = n_Mat(m.nativeObj, rowRange.start, rowRange.end, colRange.start, colRange.end);
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     // javadoc: Mat::Mat(m, rowRange)
     public Mat(Mat m, Range rowRange) {
         nativeObj = n_Mat(m.nativeObj, rowRange.start, rowRange.end);
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     //
@@ -116,6 +136,7 @@ public class Mat {
     // javadoc: Mat::Mat(m, ranges)
     public Mat(Mat m, Range[] ranges) {
         nativeObj = n_Mat(m.nativeObj, ranges);
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     //
@@ -125,6 +146,7 @@ public class Mat {
     // javadoc: Mat::Mat(m, roi)
     public Mat(Mat m, Rect roi) {
         nativeObj = n_Mat(m.nativeObj, roi.y, roi.y + roi.height, roi.x, roi.x + roi.width);
+        cleanup = MatCleaner.register(this, nativeObj);
     }
 
     //
@@ -537,6 +559,7 @@ public class Mat {
 
     // javadoc: Mat::release()
     public void release() {
+        checkNotClosed();
         n_release(nativeObj);
     }
 
@@ -754,10 +777,86 @@ public class Mat {
         return new Mat(n_zeros(sizes.length, sizes, type));
     }
 
+    /**
+     * Deletes the native object immediately instead of waiting for the garbage collector.
+     * Calling close() again does nothing and release() afterwards throws IllegalStateException,
+     * but any other call on a closed Mat (or on a MatOf* sharing it) passes freed memory to
+     * native code and is fatal. Mats that are never closed are still freed once unreachable.
+     */
     @Override
-    protected void finalize() throws Throwable {
+    public void close() {
+        closed = true;
+        cleanup.clean(true);
+    }
+
+    /** True once close() has been called. */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void checkNotClosed() {
+        if (closed)
+            throw new IllegalStateException("Mat is closed");
+    }
+
+    // Called by MatCleaner exactly once per native object
+    static void deleteNative(long nativeObj) {
         n_delete(nativeObj);
-        super.finalize();
+    }
+
+    // Used by MatStats, equivalent to total() * elemSize()
+    static long nativeBytes(long nativeObj) {
+        return n_total(nativeObj) * n_elemSize(nativeObj);
+    }
+
+    /**
+     * Returns a direct buffer in native byte order over the data of this continuous Mat, so the
+     * pixels can be read and written from Java without copying. The buffer holds its own reference
+     * to the data: it stays valid after this Mat is closed or reallocated, but then no longer
+     * aliases it. Each call creates a new view, so keep it rather than calling this per frame.
+     * Views derived from it (slice(), duplicate()) do not keep the data alive on every runtime;
+     * keep the returned buffer reachable while they are in use.
+     */
+    public ByteBuffer asByteBuffer() {
+        if (empty())
+            return ByteBuffer.allocateDirect(0).order(ByteOrder.nativeOrder());
+        long header = viewHeader();
+        ByteBuffer buffer = viewBuffer(header);
+        MatCleaner.register(buffer, header);
+        return buffer;
+    }
+
+    /** Same as {@link #asByteBuffer()} for CV_32F Mats, viewed as floats. */
+    public FloatBuffer asFloatBuffer() {
+        if (CvType.depth(type()) != CvType.CV_32F)
+            throw new UnsupportedOperationException("Mat data type is not compatible: " + type());
+        if (empty())
+            return ByteBuffer.allocateDirect(0).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        long header = viewHeader();
+        // The float view does not reference the byte buffer on Android, so it owns the header itself
+        FloatBuffer buffer = viewBuffer(header).asFloatBuffer();
+        MatCleaner.register(buffer, header);
+        return buffer;
+    }
+
+    // A new header sharing (and reference counting) this Mat's data, owned by a buffer view
+    private long viewHeader() {
+        if (!isContinuous())
+            throw new UnsupportedOperationException("Mat is not continuous, clone() it first: " + this);
+        return n_Mat(nativeObj, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    private static ByteBuffer viewBuffer(long header) {
+        ByteBuffer buffer = null;
+        try {
+            buffer = MatBuffers.nAsByteBuffer(header);
+        } finally {
+            if (buffer == null)
+                n_delete(header);
+        }
+        if (buffer == null)
+            throw new IllegalStateException("Mat data is not accessible");
+        return buffer.order(ByteOrder.nativeOrder());
     }
 
     // javadoc:Mat::toString()
@@ -1125,6 +1224,114 @@ public class Mat {
         throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
     }
 
+    // javadoc:Mat::put(row,col,data,offset,length)
+    public int put(int row, int col, float[] data, int offset, int length) {
+        checkRegion(data == null ? -1 : data.length, offset, length, CvType.CV_32F);
+        return MatBuffers.nPutF(nativeObj, row, col, data, offset, length);
+    }
+
+    // javadoc:Mat::put(row,col,data,offset,length)
+    public int put(int row, int col, int[] data, int offset, int length) {
+        checkRegion(data == null ? -1 : data.length, offset, length, CvType.CV_32S);
+        return MatBuffers.nPutI(nativeObj, row, col, data, offset, length);
+    }
+
+    // javadoc:Mat::put(row,col,data,offset,length)
+    public int put(int row, int col, double[] data, int offset, int length) {
+        checkRegion(data == null ? -1 : data.length, offset, length, CvType.CV_64F);
+        return MatBuffers.nPutD(nativeObj, row, col, data, offset, length);
+    }
+
+    // javadoc:Mat::get(row,col,data,offset,length)
+    public int get(int row, int col, float[] data, int offset, int length) {
+        checkRegion(data == null ? -1 : data.length, offset, length, CvType.CV_32F);
+        return MatBuffers.nGetF(nativeObj, row, col, data, offset, length);
+    }
+
+    // javadoc:Mat::get(row,col,data,offset,length)
+    public int get(int row, int col, int[] data, int offset, int length) {
+        checkRegion(data == null ? -1 : data.length, offset, length, CvType.CV_32S);
+        return MatBuffers.nGetI(nativeObj, row, col, data, offset, length);
+    }
+
+    // javadoc:Mat::get(row,col,data,offset,length)
+    public int get(int row, int col, double[] data, int offset, int length) {
+        checkRegion(data == null ? -1 : data.length, offset, length, CvType.CV_64F);
+        return MatBuffers.nGetD(nativeObj, row, col, data, offset, length);
+    }
+
+    /**
+     * Copies the remaining elements of data, like put(row, col, float[]), without changing its
+     * position. Array-backed buffers are copied from their array and direct buffers natively,
+     * without an intermediate Java array; a direct buffer must use the native byte order.
+     */
+    public int put(int row, int col, FloatBuffer data) {
+        int length = data.remaining();
+        checkRegion(length, 0, length, CvType.CV_32F);
+        if (data.hasArray())
+            return MatBuffers.nPutF(nativeObj, row, col, data.array(), data.arrayOffset() + data.position(), length);
+        checkDirect(data, data.order(), false);
+        return MatBuffers.nPutBuffer(nativeObj, CvType.CV_32F, row, col, data, data.position() * 4L, length * 4);
+    }
+
+    /** Same as {@link #put(int, int, FloatBuffer)} for CV_32S Mats. */
+    public int put(int row, int col, IntBuffer data) {
+        int length = data.remaining();
+        checkRegion(length, 0, length, CvType.CV_32S);
+        if (data.hasArray())
+            return MatBuffers.nPutI(nativeObj, row, col, data.array(), data.arrayOffset() + data.position(), length);
+        checkDirect(data, data.order(), false);
+        return MatBuffers.nPutBuffer(nativeObj, CvType.CV_32S, row, col, data, data.position() * 4L, length * 4);
+    }
+
+    /**
+     * Fills the remaining elements of data (or as many as the Mat has from row, col), like
+     * get(row, col, float[]), without changing its position. Same buffer requirements as
+     * {@link #put(int, int, FloatBuffer)}.
+     */
+    public int get(int row, int col, FloatBuffer data) {
+        int length = data.remaining();
+        checkRegion(length, 0, length, CvType.CV_32F);
+        if (data.hasArray())
+            return MatBuffers.nGetF(nativeObj, row, col, data.array(), data.arrayOffset() + data.position(), length);
+        checkDirect(data, data.order(), true);
+        return MatBuffers.nGetBuffer(nativeObj, CvType.CV_32F, row, col, data, data.position() * 4L, length * 4);
+    }
+
+    /** Same as {@link #get(int, int, FloatBuffer)} for CV_32S Mats. */
+    public int get(int row, int col, IntBuffer data) {
+        int length = data.remaining();
+        checkRegion(length, 0, length, CvType.CV_32S);
+        if (data.hasArray())
+            return MatBuffers.nGetI(nativeObj, row, col, data.array(), data.arrayOffset() + data.position(), length);
+        checkDirect(data, data.order(), true);
+        return MatBuffers.nGetBuffer(nativeObj, CvType.CV_32S, row, col, data, data.position() * 4L, length * 4);
+    }
+
+    // Validates an array region against this Mat the way put()/get() validate whole arrays
+    private void checkRegion(int arrayLength, int offset, int length, int depth) {
+        int t = type();
+        if (arrayLength < 0 || length % CvType.channels(t) != 0)
+            throw new UnsupportedOperationException(
+                    "Provided data element number (" + length +
+                            ") should be multiple of the Mat channels count (" +
+                            CvType.channels(t) + ")");
+        if (offset < 0 || length < 0 || offset > arrayLength - length)
+            throw new IndexOutOfBoundsException(
+                    "offset " + offset + ", length " + length + ", array length " + arrayLength);
+        if (CvType.depth(t) != depth)
+            throw new UnsupportedOperationException("Mat data type is not compatible: " + t);
+    }
+
+    private static void checkDirect(Buffer data, ByteOrder order, boolean write) {
+        if (!data.isDirect())
+            throw new IllegalArgumentException("Buffer must be direct or array-backed");
+        if (order != ByteOrder.nativeOrder())
+            throw new IllegalArgumentException("Buffer must use the native byte order");
+        if (write && data.isReadOnly())
+            throw new ReadOnlyBufferException();
+    }
+
     // javadoc:Mat::get(row,col)
     public double[] get(int row, int col) {
         return nGet(nativeObj, row, col);
@@ -1834,7 +2041,7 @@ public class Mat {
     // C++: static Mat Mat::zeros(int ndims, const int* sizes, int type)
     private static native long n_zeros(int ndims, int[] sizes, int type);
 
-    // native support for java finalize()
+    // native support for close() and MatCleaner
     private static native void n_delete(long nativeObj);
 
     private static native int nPutD(long self, int row, int col, int count, double[] data);
@@ -0,0 +1,44 @@
+package org.opencv.core;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * JNI helpers of the opencv_java_ext library, loaded on first use so that apps which never ask
+ * for a buffer view or an array-region/buffer put()/get() do not need it.
+ *
+ * The copy helpers follow Mat.put()/get(): elements are visited row by row from (row, col),
+ * the copy stops at the end of the Mat, and the number of bytes copied is returned (0 for an
+ * invalid position or type). Only the requested array region is touched.
+ */
+final class MatBuffers {
+
+    static final String LIBRARY_NAME = "opencv_java_ext";
+
+    static {
+        System.loadLibrary(LIBRARY_NAME);
+    }
+
+    private MatBuffers() {
+    }
+
+    /** Direct buffer over the data of a continuous cv::Mat, or null if it has none. */
+    static native ByteBuffer nAsByteBuffer(long nativeObj);
+
+    static native int nPutF(long nativeObj, int row, int col, float[] data, int offset, int length);
+
+    static native int nGetF(long nativeObj, int row, int col, float[] data, int offset, int length);
+
+    static native int nPutI(long nativeObj, int row, int col, int[] data, int offset, int length);
+
+    static native int nGetI(long nativeObj, int row, int col, int[] data, int offset, int length);
+
+    static native int nPutD(long nativeObj, int row, int col, double[] data, int offset, int length);
+
+    static native int nGetD(long nativeObj, int row, int col, double[] data, int offset, int length);
+
+    /** Copies bytes from a direct buffer, starting offset bytes past its address. */
+    static native int nPutBuffer(long nativeObj, int depth, int row, int col, Buffer data, long offset, int bytes);
+
+    static native int nGetBuffer(long nativeObj, int depth, int row, int col, Buffer data, long offset, int bytes);
+}
@@ -0,0 +1,118 @@
+package org.opencv.core;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+
+/**
+ * Frees the native cv::Mat of a Java Mat that became unreachable without being closed.
+ * Buffer views from Mat.asByteBuffer() register their own header the same way.
+ *
+ * This replaces Mat.finalize(). Every Mat registers a phantom reference here; Mat.close()
+ * deletes the native object right away and unregisters it, so closed Mats cost the GC nothing.
+ * Unclosed Mats are enqueued by the GC and deleted on a daemon thread, the same scheme as
+ * java.lang.ref.Cleaner, which is not available on older Android releases.
+ */
+final class MatCleaner {
+
+    static final class Ref extends PhantomReference<Object> {
+        final long nativeObj;
+        // Accounting state owned by MatStats, guarded by lock
+        boolean tracked;
+        long bytes;
+        MatStats.Site site;
+        private Ref prev;
+        private Ref next;
+        private boolean removed;
+
+        private Ref(Object owner, long nativeObj) {
+            super(owner, queue);
+            this.nativeObj = nativeObj;
+        }
+
+        /**
+         * Deletes the native object once; later calls do nothing.
+         *
+         * @param closed true for Mat.close(), false when the Mat was collected
+         */
+        void clean(boolean closed) {
+            if (unlink(this, closed)) {
+                clear();
+                Mat.deleteNative(nativeObj);
+            }
+        }
+    }
+
+    private static final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+    // Also guards the MatStats counters
+    static final Object lock = new Object();
+    // Doubly linked list keeping the references themselves reachable until they are cleaned
+    private static Ref first;
+    private static Thread thread;
+
+    private MatCleaner() {
+    }
+
+    /** Deletes nativeObj once owner is closed through the returned Ref or becomes unreachable. */
+    static Ref register(Object owner, long nativeObj) {
+        Ref ref = new Ref(owner, nativeObj);
+        String site = MatStats.isEnabled() ? MatStats.captureSite() : null;
+        synchronized (lock) {
+            ref.next = first;
+            if (first != null)
+                first.prev = ref;
+            first = ref;
+            MatStats.onRegister(ref, site);
+            if (thread == null)
+                startThread();
+        }
+        return ref;
+    }
+
+    // Refs still in the list have not been deleted yet, so their native objects can be measured
+    static void remeasure() {
+        synchronized (lock) {
+            for (Ref ref = first; ref != null; ref = ref.next) {
+                if (ref.tracked)
+                    MatStats.onMeasure(ref);
+            }
+        }
+    }
+
+    private static boolean unlink(Ref ref, boolean closed) {
+        synchronized (lock) {
+            if (ref.removed)
+                return false;
+            ref.removed = true;
+            if (ref.tracked)
+                MatStats.onRelease(ref, closed);
+            if (ref.prev != null)
+                ref.prev.next = ref.next;
+            else
+                first = ref.next;
+            if (ref.next != null)
+                ref.next.prev = ref.prev;
+            ref.prev = null;
+            ref.next = null;
+            return true;
+        }
+    }
+
+    private static void startThread() {
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        ((Ref) queue.remove()).clean(false);
+                    } catch (InterruptedException e) {
+                        // keep draining, the cleaner lives as long as the process
+                    } catch (RuntimeException e) {
+                        // never let one bad native object stop the cleaner
+                    }
+                }
+            }
+        }, "OpenCV Mat cleaner");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
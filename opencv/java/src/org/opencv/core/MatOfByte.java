@@ -14,9 +14,10 @@ public class MatOfByte extends Mat {
 
     protected MatOfByte(long addr) {
         super(addr);
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public static MatOfByte fromNativeAddr(long addr) {
@@ -25,9 +26,10 @@ public class MatOfByte extends Mat {
 
     public MatOfByte(Mat m) {
         super(m, Range.all());
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public MatOfByte(byte...a) {
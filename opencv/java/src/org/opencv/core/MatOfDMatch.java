@@ -9,6 +9,8 @@ public class MatOfDMatch extends Mat {
     // 32FC4
     private static final int _depth = CvType.CV_32F;
     private static final int _channels = 4;
+    // Reused by the per-field getters so that repeated calls on the same Mat do not allocate
+    private float[] scratch;
 
     public MatOfDMatch() {
         super();
@@ -16,9 +18,11 @@ public class MatOfDMatch extends Mat {
 
     protected MatOfDMatch(long addr) {
         super(addr);
-        if( !empty() && checkVector(_channels, _depth) < 0 )
-            throw new IllegalArgumentException("Incompatible Mat: " + toString());
-        //FIXME: do we need release() here?
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            String description = toString();
+            close();
+            throw new IllegalArgumentException("Incompatible Mat: " + description);
+        }
     }
 
     public static MatOfDMatch fromNativeAddr(long addr) {
@@ -27,9 +31,11 @@ public class MatOfDMatch extends Mat {
 
     public MatOfDMatch(Mat m) {
         super(m, Range.all());
-        if( !empty() && checkVector(_channels, _depth) < 0 )
-            throw new IllegalArgumentException("Incompatible Mat: " + toString());
-        //FIXME: do we need release() here?
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            String description = toString();
+            close();
+            throw new IllegalArgumentException("Incompatible Mat: " + description);
+        }
     }
 
     public MatOfDMatch(DMatch...ap) {
@@ -80,4 +86,72 @@ public class MatOfDMatch extends Mat {
         DMatch[] adm = toArray();
         return Arrays.asList(adm);
     }
+
+    /**
+     * Copies the matches as queryIdx, trainIdx, imgIdx, distance into dst without creating objects.
+     * dst must hold at least total() * 4 values and its length must be a multiple of 4.
+     * @return the number of elements copied
+     */
+    public int copyTo(float[] dst) {
+        int num = (int) total();
+        if(dst == null || dst.length < num * _channels)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        if(num > 0)
+            get(0, 0, dst);
+        return num;
+    }
+
+    /**
+     * Fills this Mat with the first count elements of a, laid out as in {@link #copyTo(float[])}.
+     * A count of 0 (or a null array) empties the Mat.
+     */
+    public void fromArray(float[] a, int count) {
+        if(a==null || count<=0) {
+            release();
+            return;
+        }
+        if(a.length < count * _channels)
+            throw new IllegalArgumentException("Input array too small for " + count + " elements");
+        alloc(count);
+        put(0, 0, a, 0, count * _channels);
+    }
+
+    private int readScratch() {
+        int num = (int) total();
+        if(scratch == null || scratch.length < num * _channels)
+            scratch = new float[num * _channels];
+        if(num > 0)
+            get(0, 0, scratch);
+        return num;
+    }
+
+    /** Copies queryIdx of every element into dst, which must hold at least total() values. @return the number of elements */
+    public int getQueryIdxs(int[] dst) {
+        int num = readScratch();
+        if(dst == null || dst.length < num)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        for(int i=0; i<num; i++)
+            dst[i] = (int) scratch[_channels*i+0];
+        return num;
+    }
+
+    /** Copies trainIdx of every element into dst, which must hold at least total() values. @return the number of elements */
+    public int getTrainIdxs(int[] dst) {
+        int num = readScratch();
+        if(dst == null || dst.length < num)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        for(int i=0; i<num; i++)
+            dst[i] = (int) scratch[_channels*i+1];
+        return num;
+    }
+
+    /** Copies the distance of every element into dst, which must hold at least total() values. @return the number of elements */
+    public int getDistances(float[] dst) {
+        int num = readScratch();
+        if(dst == null || dst.length < num)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        for(int i=0; i<num; i++)
+            dst[i] = scratch[_channels*i+3];
+        return num;
+    }
 }
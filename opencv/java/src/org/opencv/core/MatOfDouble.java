@@ -14,9 +14,10 @@ public class MatOfDouble extends Mat {
 
     protected MatOfDouble(long addr) {
         super(addr);
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public static MatOfDouble fromNativeAddr(long addr) {
@@ -25,9 +26,10 @@ public class MatOfDouble extends Mat {
 
     public MatOfDouble(Mat m) {
         super(m, Range.all());
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public MatOfDouble(double...a) {
@@ -14,9 +14,10 @@ public class MatOfFloat extends Mat {
 
     protected MatOfFloat(long addr) {
         super(addr);
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public static MatOfFloat fromNativeAddr(long addr) {
@@ -25,9 +26,10 @@ public class MatOfFloat extends Mat {
 
     public MatOfFloat(Mat m) {
         super(m, Range.all());
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public MatOfFloat(float...a) {
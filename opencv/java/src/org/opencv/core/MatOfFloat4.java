@@ -14,9 +14,10 @@ public class MatOfFloat4 extends Mat {
 
     protected MatOfFloat4(long addr) {
         super(addr);
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public static MatOfFloat4 fromNativeAddr(long addr) {
@@ -25,9 +26,10 @@ public class MatOfFloat4 extends Mat {
 
     public MatOfFloat4(Mat m) {
         super(m, Range.all());
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public MatOfFloat4(float...a) {
@@ -14,9 +14,10 @@ public class MatOfFloat6 extends Mat {
 
     protected MatOfFloat6(long addr) {
         super(addr);
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public static MatOfFloat6 fromNativeAddr(long addr) {
@@ -25,9 +26,10 @@ public class MatOfFloat6 extends Mat {
 
     public MatOfFloat6(Mat m) {
         super(m, Range.all());
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public MatOfFloat6(float...a) {
@@ -9,6 +9,8 @@ public class MatOfKeyPoint extends Mat {
     // 32FC7
     private static final int _depth = CvType.CV_32F;
     private static final int _channels = 7;
+    // Reused by the per-field getters so that repeated calls on the same Mat do not allocate
+    private float[] scratch;
 
     public MatOfKeyPoint() {
         super();
@@ -16,9 +18,10 @@ public class MatOfKeyPoint extends Mat {
 
     protected MatOfKeyPoint(long addr) {
         super(addr);
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public static MatOfKeyPoint fromNativeAddr(long addr) {
@@ -27,9 +30,10 @@ public class MatOfKeyPoint extends Mat {
 
     public MatOfKeyPoint(Mat m) {
         super(m, Range.all());
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public MatOfKeyPoint(KeyPoint...a) {
@@ -83,4 +87,82 @@ public class MatOfKeyPoint extends Mat {
         KeyPoint[] akp = toArray();
         return Arrays.asList(akp);
     }
+
+    /**
+     * Copies the keypoints as x, y, size, angle, response, octave, class_id into dst without creating objects.
+     * dst must hold at least total() * 7 values and its length must be a multiple of 7.
+     * @return the number of elements copied
+     */
+    public int copyTo(float[] dst) {
+        int num = (int) total();
+        if(dst == null || dst.length < num * _channels)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        if(num > 0)
+            get(0, 0, dst);
+        return num;
+    }
+
+    /**
+     * Fills this Mat with the first count elements of a, laid out as in {@link #copyTo(float[])}.
+     * A count of 0 (or a null array) empties the Mat.
+     */
+    public void fromArray(float[] a, int count) {
+        if(a==null || count<=0) {
+            release();
+            return;
+        }
+        if(a.length < count * _channels)
+            throw new IllegalArgumentException("Input array too small for " + count + " elements");
+        alloc(count);
+        put(0, 0, a, 0, count * _channels);
+    }
+
+    private int readScratch() {
+        int num = (int) total();
+        if(scratch == null || scratch.length < num * _channels)
+            scratch = new float[num * _channels];
+        if(num > 0)
+            get(0, 0, scratch);
+        return num;
+    }
+
+    /** Copies the x coordinate of every element into dst, which must hold at least total() values. @return the number of elements */
+    public int getXs(float[] dst) {
+        int num = readScratch();
+        if(dst == null || dst.length < num)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        for(int i=0; i<num; i++)
+            dst[i] = scratch[_channels*i+0];
+        return num;
+    }
+
+    /** Copies the y coordinate of every element into dst, which must hold at least total() values. @return the number of elements */
+    public int getYs(float[] dst) {
+        int num = readScratch();
+        if(dst == null || dst.length < num)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        for(int i=0; i<num; i++)
+            dst[i] = scratch[_channels*i+1];
+        return num;
+    }
+
+    /** Copies the size of every element into dst, which must hold at least total() values. @return the number of elements */
+    public int getSizes(float[] dst) {
+        int num = readScratch();
+        if(dst == null || dst.length < num)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        for(int i=0; i<num; i++)
+            dst[i] = scratch[_channels*i+2];
+        return num;
+    }
+
+    /** Copies the response of every element into dst, which must hold at least total() values. @return the number of elements */
+    public int getResponses(float[] dst) {
+        int num = readScratch();
+        if(dst == null || dst.length < num)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        for(int i=0; i<num; i++)
+            dst[i] = scratch[_channels*i+4];
+        return num;
+    }
 }
@@ -7,6 +7,8 @@ public class MatOfPoint extends Mat {
     // 32SC2
     private static final int _depth = CvType.CV_32S;
     private static final int _channels = 2;
+    // Reused by the per-field getters so that repeated calls on the same Mat do not allocate
+    private int[] scratch;
 
     public MatOfPoint() {
         super();
@@ -14,9 +16,10 @@ public class MatOfPoint extends Mat {
 
     protected MatOfPoint(long addr) {
         super(addr);
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public static MatOfPoint fromNativeAddr(long addr) {
@@ -25,9 +28,10 @@ public class MatOfPoint extends Mat {
 
     public MatOfPoint(Mat m) {
         super(m, Range.all());
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public MatOfPoint(Point...a) {
@@ -75,4 +79,74 @@ public class MatOfPoint extends Mat {
         Point[] ap = toArray();
         return Arrays.asList(ap);
     }
+
+    /**
+     * Copies the points as x, y pairs into dst without creating objects.
+     * dst must hold at least total() * 2 values and its length must be a multiple of 2.
+     * @return the number of elements copied
+     */
+    public int copyTo(int[] dst) {
+        int num = (int) total();
+        if(dst == null || dst.length < num * _channels)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        if(num > 0)
+            get(0, 0, dst);
+        return num;
+    }
+
+    /**
+     * Fills this Mat with the first count elements of a, laid out as in {@link #copyTo(int[])}.
+     * A count of 0 (or a null array) empties the Mat.
+     */
+    public void fromArray(int[] a, int count) {
+        if(a==null || count<=0) {
+            release();
+            return;
+        }
+        if(a.length < count * _channels)
+            throw new IllegalArgumentException("Input array too small for " + count + " elements");
+        alloc(count);
+        put(0, 0, a, 0, count * _channels);
+    }
+
+    private int readScratch() {
+        int num = (int) total();
+        if(scratch == null || scratch.length < num * _channels)
+            scratch = new int[num * _channels];
+        if(num > 0)
+            get(0, 0, scratch);
+        return num;
+    }
+
+    /** Copies the x coordinate of every element into dst, which must hold at least total() values. @return the number of elements */
+    public int getXs(int[] dst) {
+        int num = readScratch();
+        if(dst == null || dst.length < num)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        for(int i=0; i<num; i++)
+            dst[i] = scratch[_channels*i+0];
+        return num;
+    }
+
+    /** Copies the y coordinate of every element into dst, which must hold at least total() values. @return the number of elements */
+    public int getYs(int[] dst) {
+        int num = readScratch();
+        if(dst == null || dst.length < num)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        for(int i=0; i<num; i++)
+            dst[i] = scratch[_channels*i+1];
+        return num;
+    }
+
+    /** Copies the coordinates into separate arrays with a single native read. @return the number of points */
+    public int getXY(int[] xs, int[] ys) {
+        int num = readScratch();
+        if(xs == null || ys == null || xs.length < num || ys.length < num)
+            throw new IllegalArgumentException("Output arrays too small for " + num + " elements");
+        for(int i=0; i<num; i++) {
+            xs[i] = scratch[_channels*i];
+            ys[i] = scratch[_channels*i+1];
+        }
+        return num;
+    }
 }
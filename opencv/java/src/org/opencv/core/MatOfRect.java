@@ -8,6 +8,8 @@ public class MatOfRect extends Mat {
     // 32SC4
     private static final int _depth = CvType.CV_32S;
     private static final int _channels = 4;
+    // Reused by the per-field getters so that repeated calls on the same Mat do not allocate
+    private int[] scratch;
 
     public MatOfRect() {
         super();
@@ -15,9 +17,10 @@ public class MatOfRect extends Mat {
 
     protected MatOfRect(long addr) {
         super(addr);
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public static MatOfRect fromNativeAddr(long addr) {
@@ -26,9 +29,10 @@ public class MatOfRect extends Mat {
 
     public MatOfRect(Mat m) {
         super(m, Range.all());
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public MatOfRect(Rect...a) {
@@ -78,4 +82,82 @@ public class MatOfRect extends Mat {
         Rect[] ar = toArray();
         return Arrays.asList(ar);
     }
+
+    /**
+     * Copies the rectangles as x, y, width, height into dst without creating objects.
+     * dst must hold at least total() * 4 values and its length must be a multiple of 4.
+     * @return the number of elements copied
+     */
+    public int copyTo(int[] dst) {
+        int num = (int) total();
+        if(dst == null || dst.length < num * _channels)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        if(num > 0)
+            get(0, 0, dst);
+        return num;
+    }
+
+    /**
+     * Fills this Mat with the first count elements of a, laid out as in {@link #copyTo(int[])}.
+     * A count of 0 (or a null array) empties the Mat.
+     */
+    public void fromArray(int[] a, int count) {
+        if(a==null || count<=0) {
+            release();
+            return;
+        }
+        if(a.length < count * _channels)
+            throw new IllegalArgumentException("Input array too small for " + count + " elements");
+        alloc(count);
+        put(0, 0, a, 0, count * _channels);
+    }
+
+    private int readScratch() {
+        int num = (int) total();
+        if(scratch == null || scratch.length < num * _channels)
+            scratch = new int[num * _channels];
+        if(num > 0)
+            get(0, 0, scratch);
+        return num;
+    }
+
+    /** Copies the left edge of every element into dst, which must hold at least total() values. @return the number of elements */
+    public int getXs(int[] dst) {
+        int num = readScratch();
+        if(dst == null || dst.length < num)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        for(int i=0; i<num; i++)
+            dst[i] = scratch[_channels*i+0];
+        return num;
+    }
+
+    /** Copies the top edge of every element into dst, which must hold at least total() values. @return the number of elements */
+    public int getYs(int[] dst) {
+        int num = readScratch();
+        if(dst == null || dst.length < num)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        for(int i=0; i<num; i++)
+            dst[i] = scratch[_channels*i+1];
+        return num;
+    }
+
+    /** Copies the width of every element into dst, which must hold at least total() values. @return the number of elements */
+    public int getWidths(int[] dst) {
+        int num = readScratch();
+        if(dst == null || dst.length < num)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        for(int i=0; i<num; i++)
+            dst[i] = scratch[_channels*i+2];
+        return num;
+    }
+
+    /** Copies the height of every element into dst, which must hold at least total() values. @return the number of elements */
+    public int getHeights(int[] dst) {
+        int num = readScratch();
+        if(dst == null || dst.length < num)
+            throw new IllegalArgumentException("Output array too small for " + num + " elements");
+        for(int i=0; i<num; i++)
+            dst[i] = scratch[_channels*i+3];
+        return num;
+    }
 }
@@ -15,9 +15,10 @@ public class MatOfRect2d extends Mat {
 
     protected MatOfRect2d(long addr) {
         super(addr);
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public static MatOfRect2d fromNativeAddr(long addr) {
@@ -26,9 +27,10 @@ public class MatOfRect2d extends Mat {
 
     public MatOfRect2d(Mat m) {
         super(m, Range.all());
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public MatOfRect2d(Rect2d...a) {
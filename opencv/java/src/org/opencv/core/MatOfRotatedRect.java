@@ -18,9 +18,10 @@ public class MatOfRotatedRect extends Mat {
 
     protected MatOfRotatedRect(long addr) {
         super(addr);
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public static MatOfRotatedRect fromNativeAddr(long addr) {
@@ -29,9 +30,10 @@ public class MatOfRotatedRect extends Mat {
 
     public MatOfRotatedRect(Mat m) {
         super(m, Range.all());
-        if( !empty() && checkVector(_channels, _depth) < 0 )
+        if( !empty() && checkVector(_channels, _depth) < 0 ) {
+            close();
             throw new IllegalArgumentException("Incompatible Mat");
-        //FIXME: do we need release() here?
+        }
     }
 
     public MatOfRotatedRect(RotatedRect...a) {
@@ -0,0 +1,207 @@
+package org.opencv.core;
+
+import java.util.ArrayList;
+
+/**
+ * Pool of reusable Mat temporaries with scoped (arena-like) release.
+ *
+ * Mats are handed out with {@link #acquire(int, int, int)} and returned to the pool when the
+ * enclosing {@link Scope} is closed, so a per-frame code path can allocate its temporaries
+ * inside a try-with-resources block and never leave native buffers to the finalizer:
+ *
+ * <pre>
+ * try (MatPool.Scope scope = pool.scope()) {
+ *     Mat gray = scope.acquire(rows, cols, CvType.CV_8UC1);
+ *     Mat tmp = scope.acquire();
+ *     ...
+ * }
+ * </pre>
+ *
+ * A returned Mat keeps its native buffer, so acquiring the same size and type again is free.
+ * Callers may pass pooled Mats as output arguments; a Mat is filed under whatever size and type
+ * it has when it comes back. At most maxFree idle Mats are kept, the oldest ones are closed.
+ *
+ * Do not hand a pooled Mat to anything that keeps a reference to its data after the scope ends
+ * (for example the KalmanFilter set_*() setters, which share the buffer): the next acquire()
+ * of the same shape will overwrite it. Scopes must be closed in LIFO order. The pool is not thread-safe: use one pool per thread.
+ */
+public class MatPool {
+
+    public static final int DEFAULT_MAX_FREE = 16;
+
+    /** Marks a position in the pool; closing it returns every Mat acquired since it was opened. */
+    public final class Scope implements AutoCloseable {
+        private final int mark;
+        private boolean closed;
+
+        private Scope(int mark) {
+            this.mark = mark;
+        }
+
+        public Mat acquire(int rows, int cols, int type) {
+            return MatPool.this.acquire(rows, cols, type);
+        }
+
+        public Mat acquire(Size size, int type) {
+            return MatPool.this.acquire((int) size.height, (int) size.width, type);
+        }
+
+        public Mat acquire() {
+            return MatPool.this.acquire();
+        }
+
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closed = true;
+            releaseTo(mark);
+        }
+    }
+
+    private final int maxFree;
+    private final ArrayList<Mat> inUse = new ArrayList<Mat>();
+    private final ArrayList<Mat> free = new ArrayList<Mat>();
+
+    private long created;
+    private long reused;
+    private long evicted;
+    private int peakInUse;
+
+    public MatPool() {
+        this(DEFAULT_MAX_FREE);
+    }
+
+    public MatPool(int maxFree) {
+        this.maxFree = maxFree;
+    }
+
+    public Scope scope() {
+        return new Scope(inUse.size());
+    }
+
+    /**
+     * Returns a Mat with exactly the given size and type. Reuses an idle Mat of the same shape
+     * when available, otherwise the most recently returned idle Mat is re-created, otherwise a
+     * new Mat is allocated. The Mat stays in use until {@link #releaseTo(int)} or the enclosing
+     * scope is closed; do not release() or close() it.
+     */
+    public Mat acquire(int rows, int cols, int type) {
+        Mat mat = null;
+        for (int i = free.size() - 1; i >= 0; i--) {
+            Mat candidate = free.get(i);
+            if (candidate.rows() == rows && candidate.cols() == cols && candidate.type() == type) {
+                mat = free.remove(i);
+                reused++;
+                break;
+            }
+        }
+        if (mat == null) {
+            if (free.size() >= maxFree) {
+                // Pool is saturated with other shapes, recycle one instead of growing
+                mat = free.remove(free.size() - 1);
+                mat.create(rows, cols, type);
+            } else {
+                mat = new Mat(rows, cols, type);
+                created++;
+            }
+        }
+        return track(mat);
+    }
+
+    /** Returns an idle Mat of any shape, intended as an output argument. */
+    public Mat acquire() {
+        Mat mat;
+        if (!free.isEmpty()) {
+            mat = free.remove(free.size() - 1);
+            reused++;
+        } else {
+            mat = new Mat();
+            created++;
+        }
+        return track(mat);
+    }
+
+    /** Number of Mats currently in use; pass it back to releaseTo() to free everything acquired after it. */
+    public int mark() {
+        return inUse.size();
+    }
+
+    /** Returns every Mat acquired after the given mark to the pool. */
+    public void releaseTo(int mark) {
+        for (int i = inUse.size() - 1; i >= mark; i--) {
+            Mat mat = inUse.remove(i);
+            if (free.size() >= maxFree) {
+                free.remove(0).close();
+                evicted++;
+            }
+            free.add(mat);
+        }
+    }
+
+    /** Closes all idle Mats. Mats still in use are not touched. */
+    public void trim() {
+        for (Mat mat : free)
+            mat.close();
+        free.clear();
+    }
+
+    /** Closes every Mat owned by the pool, including those still in use. */
+    public void clear() {
+        trim();
+        for (Mat mat : inUse)
+            mat.close();
+        inUse.clear();
+    }
+
+    /** Number of native Mats currently owned by the pool (in use plus idle). */
+    public int getLiveCount() {
+        return inUse.size() + free.size();
+    }
+
+    public int getInUseCount() {
+        return inUse.size();
+    }
+
+    public int getFreeCount() {
+        return free.size();
+    }
+
+    public int getPeakInUseCount() {
+        return peakInUse;
+    }
+
+    public long getCreatedCount() {
+        return created;
+    }
+
+    public long getReusedCount() {
+        return reused;
+    }
+
+    public long getEvictedCount() {
+        return evicted;
+    }
+
+    /** Bytes of pixel data held by idle Mats. */
+    public long getFreeBytes() {
+        long bytes = 0;
+        for (Mat mat : free)
+            bytes += mat.total() * mat.elemSize();
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "MatPool [ live=" + getLiveCount() + ", inUse=" + inUse.size() + ", free=" + free.size() +
+                ", peakInUse=" + peakInUse + ", created=" + created + ", reused=" + reused +
+                ", evicted=" + evicted + ", freeBytes=" + getFreeBytes() + " ]";
+    }
+
+    private Mat track(Mat mat) {
+        inUse.add(mat);
+        if (inUse.size() > peakInUse)
+            peakInUse = inUse.size();
+        return mat;
+    }
+}
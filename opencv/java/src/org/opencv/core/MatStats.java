@@ -0,0 +1,289 @@
+package org.opencv.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Opt-in accounting of the native memory held by Mat objects.
+ *
+ * While enabled, every Mat constructed is counted until it is closed or collected: live count,
+ * bytes (total() * elemSize()), high-water marks and, optionally, a histogram of allocation
+ * sites (the first stack frame outside org.opencv). Mats freed by the garbage collector instead
+ * of close() are counted separately; a site whose live count keeps growing, or one with many
+ * collected Mats, is where native buffers leak or churn.
+ *
+ * <pre>
+ * MatStats.enable(true);
+ * ...
+ * Log.d(TAG, MatStats.dump());
+ * </pre>
+ *
+ * Bytes are measured when a Mat is constructed, when it is released and on {@link #remeasure()};
+ * a Mat that grows in between (create(), output arguments) is undercounted until the next
+ * measurement. Headers sharing one buffer (submat(), Mat(Mat, Range)) are counted once each.
+ * Mats constructed while disabled are never counted. Disabled by default; the cost is then one
+ * volatile read per Mat. Recording sites takes a stack trace per Mat and is meant for debugging.
+ */
+public final class MatStats {
+
+    /** Allocations attributed to one call site. */
+    static final class Site {
+        final String name;
+        long allocated;
+        long live;
+        long liveBytes;
+        long collected;
+
+        Site(String name) {
+            this.name = name;
+        }
+    }
+
+    public static final int DEFAULT_DUMP_SITES = 20;
+
+    private static final String UNKNOWN_SITE = "<unknown>";
+
+    private static volatile boolean enabled;
+    private static volatile boolean recordSites;
+
+    // Guarded by MatCleaner.lock, like the references they describe
+    private static long liveCount;
+    private static long liveBytes;
+    private static long peakCount;
+    private static long peakBytes;
+    private static long allocatedCount;
+    private static long closedCount;
+    private static long collectedCount;
+    private static final HashMap<String, Site> sites = new HashMap<String, Site>();
+
+    private MatStats() {
+    }
+
+    /**
+     * Starts counting Mats constructed from now on.
+     *
+     * @param recordSites also attribute each Mat to the code that constructed it
+     */
+    public static void enable(boolean recordSites) {
+        MatStats.recordSites = recordSites;
+        enabled = true;
+    }
+
+    /** Stops counting new Mats. Mats already counted are still subtracted when released. */
+    public static void disable() {
+        enabled = false;
+        recordSites = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static long getLiveCount() {
+        synchronized (MatCleaner.lock) {
+            return liveCount;
+        }
+    }
+
+    public static long getLiveBytes() {
+        synchronized (MatCleaner.lock) {
+            return liveBytes;
+        }
+    }
+
+    public static long getPeakCount() {
+        synchronized (MatCleaner.lock) {
+            return peakCount;
+        }
+    }
+
+    public static long getPeakBytes() {
+        synchronized (MatCleaner.lock) {
+            return peakBytes;
+        }
+    }
+
+    public static long getAllocatedCount() {
+        synchronized (MatCleaner.lock) {
+            return allocatedCount;
+        }
+    }
+
+    public static long getClosedCount() {
+        synchronized (MatCleaner.lock) {
+            return closedCount;
+        }
+    }
+
+    /** Number of counted Mats that were never closed and had to be freed by the garbage collector. */
+    public static long getCollectedCount() {
+        synchronized (MatCleaner.lock) {
+            return collectedCount;
+        }
+    }
+
+    /**
+     * Measures every live counted Mat again. The sizes are read without synchronizing with the
+     * threads using those Mats, so call it when they are idle or accept an approximate result.
+     */
+    public static void remeasure() {
+        MatCleaner.remeasure();
+    }
+
+    /** Restarts the cumulative counters and high-water marks from the current live state. */
+    public static void reset() {
+        synchronized (MatCleaner.lock) {
+            allocatedCount = 0;
+            closedCount = 0;
+            collectedCount = 0;
+            peakCount = liveCount;
+            peakBytes = liveBytes;
+            Iterator<Site> it = sites.values().iterator();
+            while (it.hasNext()) {
+                Site site = it.next();
+                if (site.live == 0) {
+                    it.remove();
+                } else {
+                    site.allocated = 0;
+                    site.collected = 0;
+                }
+            }
+        }
+    }
+
+    public static String dump() {
+        return dump(DEFAULT_DUMP_SITES);
+    }
+
+    /**
+     * Remeasures and returns a report of the counters followed by up to maxSites allocation
+     * sites, largest live bytes first.
+     */
+    public static String dump(int maxSites) {
+        remeasure();
+        StringBuilder sb = new StringBuilder();
+        ArrayList<Site> sorted;
+        synchronized (MatCleaner.lock) {
+            sb.append("MatStats [ live=").append(liveCount).append(" (").append(formatBytes(liveBytes))
+                    .append("), peak=").append(peakCount).append(" (").append(formatBytes(peakBytes))
+                    .append("), allocated=").append(allocatedCount).append(", closed=").append(closedCount)
+                    .append(", collected=").append(collectedCount).append(" ]");
+            sorted = new ArrayList<Site>(sites.size());
+            for (Site site : sites.values()) {
+                Site copy = new Site(site.name);
+                copy.allocated = site.allocated;
+                copy.live = site.live;
+                copy.liveBytes = site.liveBytes;
+                copy.collected = site.collected;
+                sorted.add(copy);
+            }
+        }
+        Collections.sort(sorted, new Comparator<Site>() {
+            @Override
+            public int compare(Site a, Site b) {
+                if (a.liveBytes != b.liveBytes)
+                    return a.liveBytes < b.liveBytes ? 1 : -1;
+                if (a.allocated != b.allocated)
+                    return a.allocated < b.allocated ? 1 : -1;
+                return a.name.compareTo(b.name);
+            }
+        });
+        int count = Math.min(maxSites, sorted.size());
+        for (int i = 0; i < count; i++) {
+            Site site = sorted.get(i);
+            sb.append("\n  live=").append(site.live).append(" (").append(formatBytes(site.liveBytes))
+                    .append(") allocated=").append(site.allocated).append(" collected=").append(site.collected)
+                    .append("  ").append(site.name);
+        }
+        if (sorted.size() > count)
+            sb.append("\n  ... ").append(sorted.size() - count).append(" more sites");
+        return sb.toString();
+    }
+
+    // Called by MatCleaner.register() outside its lock
+    static String captureSite() {
+        if (!recordSites)
+            return null;
+        StackTraceElement[] stack = new Throwable().getStackTrace();
+        for (StackTraceElement frame : stack) {
+            if (!frame.getClassName().startsWith("org.opencv."))
+                return frame.toString();
+        }
+        return UNKNOWN_SITE;
+    }
+
+    // Called with MatCleaner.lock held
+    static void onRegister(MatCleaner.Ref ref, String siteName) {
+        if (!enabled)
+            return;
+        ref.tracked = true;
+        ref.bytes = Mat.nativeBytes(ref.nativeObj);
+        allocatedCount++;
+        liveCount++;
+        liveBytes += ref.bytes;
+        if (siteName != null) {
+            Site site = sites.get(siteName);
+            if (site == null) {
+                site = new Site(siteName);
+                sites.put(siteName, site);
+            }
+            site.allocated++;
+            site.live++;
+            site.liveBytes += ref.bytes;
+            ref.site = site;
+        }
+        updatePeaks();
+    }
+
+    // Called with MatCleaner.lock held, before the native object is deleted
+    static void onMeasure(MatCleaner.Ref ref) {
+        long bytes = Mat.nativeBytes(ref.nativeObj);
+        long delta = bytes - ref.bytes;
+        if (delta == 0)
+            return;
+        ref.bytes = bytes;
+        liveBytes += delta;
+        if (ref.site != null)
+            ref.site.liveBytes += delta;
+        updatePeaks();
+    }
+
+    // Called with MatCleaner.lock held, before the native object is deleted
+    static void onRelease(MatCleaner.Ref ref, boolean closed) {
+        onMeasure(ref);
+        liveCount--;
+        liveBytes -= ref.bytes;
+        if (closed)
+            closedCount++;
+        else
+            collectedCount++;
+        Site site = ref.site;
+        if (site != null) {
+            site.live--;
+            site.liveBytes -= ref.bytes;
+            if (!closed)
+                site.collected++;
+        }
+        ref.tracked = false;
+        ref.site = null;
+    }
+
+    private static void updatePeaks() {
+        if (liveCount > peakCount)
+            peakCount = liveCount;
+        if (liveBytes > peakBytes)
+            peakBytes = liveBytes;
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024)
+            return bytes + " B";
+        if (bytes < 1024 * 1024)
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -1,5 +1,9 @@
 package org.opencv.utils;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -803,4 +807,545 @@ public class Converters {
             rs.add(new RotatedRect(new Point(buff[5 * i], buff[5 * i + 1]), new Size(buff[5 * i + 2], buff[5 * i + 3]), buff[5 * i + 4]));
         }
     }
+
+    //
+    // Primitive array and buffer variants
+    //
+    // These avoid the boxing and the per-call List/object allocation of the converters above.
+    // The "to_Mat" variants write into an existing Mat, which is (re)allocated only when its size
+    // or type changes. The "Mat_to" variants copy into a caller-owned array or buffer and return
+    // the number of vector elements; arrays hold the fields interleaved in Mat channel order and
+    // must be large enough (count * channels). Only the first count elements of a "to_Mat" array
+    // are read; "Mat_to" arrays must have a length that is a multiple of the channel count.
+    // Empty Mats convert to zero elements. The List variants reuse the objects already in the
+    // list, allocate only for the elements it lacks, and return the scratch array they used:
+    // pass it back on the next call so that steady-state conversion allocates nothing.
+    //
+
+    public static Mat vector_float_to_Mat(float[] fs) {
+        Mat res = new Mat();
+        vector_float_to_Mat(fs, fs != null ? fs.length : 0, res);
+        return res;
+    }
+
+    public static void vector_float_to_Mat(float[] fs, int count, Mat dst) {
+        if (prepare(dst, count, fs != null ? fs.length : 0, CvType.CV_32FC1))
+            dst.put(0, 0, fs, 0, count);
+    }
+
+    /**
+     * Copies the remaining elements of src and advances its position. Array-backed buffers are
+     * copied from their array, direct buffers (native byte order) natively, without a Java array.
+     */
+    public static void vector_float_to_Mat(FloatBuffer src, Mat dst) {
+        int count = src.remaining();
+        if (!prepare(dst, count, count, CvType.CV_32FC1))
+            return;
+        dst.put(0, 0, src);
+        src.position(src.position() + count);
+    }
+
+    public static int Mat_to_vector_float(Mat m, float[] fs) {
+        int count = checkVector(m, CvType.CV_32FC1, "CvType.CV_32FC1");
+        checkLength(fs, fs != null ? fs.length : 0, count);
+        if (count > 0)
+            m.get(0, 0, fs);
+        return count;
+    }
+
+    /** Writes the vector at the position of dst and advances it; same buffer rules as above. */
+    public static int Mat_to_vector_float(Mat m, FloatBuffer dst) {
+        int count = checkVector(m, CvType.CV_32FC1, "CvType.CV_32FC1");
+        checkLength(dst, dst.remaining(), count);
+        if (count == 0)
+            return 0;
+        m.get(0, 0, dst);
+        dst.position(dst.position() + count);
+        return count;
+    }
+
+    public static Mat vector_int_to_Mat(int[] is) {
+        Mat res = new Mat();
+        vector_int_to_Mat(is, is != null ? is.length : 0, res);
+        return res;
+    }
+
+    public static void vector_int_to_Mat(int[] is, int count, Mat dst) {
+        if (prepare(dst, count, is != null ? is.length : 0, CvType.CV_32SC1))
+            dst.put(0, 0, is, 0, count);
+    }
+
+    /** Same as {@link #vector_float_to_Mat(FloatBuffer, Mat)} for CV_32SC1. */
+    public static void vector_int_to_Mat(IntBuffer src, Mat dst) {
+        int count = src.remaining();
+        if (!prepare(dst, count, count, CvType.CV_32SC1))
+            return;
+        dst.put(0, 0, src);
+        src.position(src.position() + count);
+    }
+
+    public static int Mat_to_vector_int(Mat m, int[] is) {
+        int count = checkVector(m, CvType.CV_32SC1, "CvType.CV_32SC1");
+        checkLength(is, is != null ? is.length : 0, count);
+        if (count > 0)
+            m.get(0, 0, is);
+        return count;
+    }
+
+    /** Same as {@link #Mat_to_vector_float(Mat, FloatBuffer)} for CV_32SC1. */
+    public static int Mat_to_vector_int(Mat m, IntBuffer dst) {
+        int count = checkVector(m, CvType.CV_32SC1, "CvType.CV_32SC1");
+        checkLength(dst, dst.remaining(), count);
+        if (count == 0)
+            return 0;
+        m.get(0, 0, dst);
+        dst.position(dst.position() + count);
+        return count;
+    }
+
+    public static Mat vector_double_to_Mat(double[] ds) {
+        Mat res = new Mat();
+        vector_double_to_Mat(ds, ds != null ? ds.length : 0, res);
+        return res;
+    }
+
+    public static void vector_double_to_Mat(double[] ds, int count, Mat dst) {
+        if (prepare(dst, count, ds != null ? ds.length : 0, CvType.CV_64FC1))
+            dst.put(0, 0, ds, 0, count);
+    }
+
+    public static int Mat_to_vector_double(Mat m, double[] ds) {
+        int count = checkVector(m, CvType.CV_64FC1, "CvType.CV_64FC1");
+        checkLength(ds, ds != null ? ds.length : 0, count);
+        if (count > 0)
+            m.get(0, 0, ds);
+        return count;
+    }
+
+    public static Mat vector_uchar_to_Mat(byte[] bs) {
+        Mat res = new Mat();
+        vector_uchar_to_Mat(bs, bs != null ? bs.length : 0, res);
+        return res;
+    }
+
+    public static void vector_uchar_to_Mat(byte[] bs, int count, Mat dst) {
+        if (prepare(dst, count, bs != null ? bs.length : 0, CvType.CV_8UC1))
+            dst.put(0, 0, bs, 0, count);
+    }
+
+    public static int Mat_to_vector_uchar(Mat m, byte[] bs) {
+        int count = checkVector(m, CvType.CV_8UC1, "CvType.CV_8UC1");
+        checkLength(bs, bs != null ? bs.length : 0, count);
+        if (count > 0)
+            m.get(0, 0, bs);
+        return count;
+    }
+
+    public static Mat vector_char_to_Mat(byte[] bs) {
+        Mat res = new Mat();
+        vector_char_to_Mat(bs, bs != null ? bs.length : 0, res);
+        return res;
+    }
+
+    public static void vector_char_to_Mat(byte[] bs, int count, Mat dst) {
+        if (prepare(dst, count, bs != null ? bs.length : 0, CvType.CV_8SC1))
+            dst.put(0, 0, bs, 0, count);
+    }
+
+    public static int Mat_to_vector_char(Mat m, byte[] bs) {
+        int count = checkVector(m, CvType.CV_8SC1, "CvType.CV_8SC1");
+        checkLength(bs, bs != null ? bs.length : 0, count);
+        if (count > 0)
+            m.get(0, 0, bs);
+        return count;
+    }
+
+    /**
+     * Copies count elements of the given single-channel type (CV_8UC1, CV_8SC1, CV_32SC1,
+     * CV_32FC1 or CV_64FC1) from a direct buffer in native byte order, starting at index 0 like
+     * Mat(rows, cols, type, ByteBuffer). The copy is done natively, without a Java array.
+     */
+    public static void vector_to_Mat(ByteBuffer src, int count, int type, Mat dst) {
+        int elemSize = checkBuffer(src, type);
+        if (!prepare(dst, count, src.capacity() / elemSize, type))
+            return;
+        Mat view = new Mat(count, 1, type, src);
+        try {
+            view.copyTo(dst);
+        } finally {
+            view.close();
+        }
+    }
+
+    /**
+     * Copies a single-channel vector Mat into a direct buffer in native byte order, starting at
+     * index 0. The copy is done natively, without a Java array.
+     */
+    public static int Mat_to_vector(Mat m, ByteBuffer dst) {
+        int type = m.type();
+        int count = checkVector(m, type, CvType.typeToString(type));
+        int elemSize = checkBuffer(dst, type);
+        checkLength(dst, dst.capacity() / elemSize, count);
+        if (count == 0)
+            return 0;
+        Mat view = new Mat(count, 1, type, dst);
+        try {
+            // same size and type, so copyTo() writes into the buffer instead of reallocating
+            m.copyTo(view);
+        } finally {
+            view.close();
+        }
+        return count;
+    }
+
+    public static void vector_Point_to_Mat(int[] xy, int count, Mat dst) {
+        if (prepare(dst, count, xy != null ? xy.length / 2 : 0, CvType.CV_32SC2))
+            dst.put(0, 0, xy, 0, count * 2);
+    }
+
+    public static void vector_Point2f_to_Mat(float[] xy, int count, Mat dst) {
+        if (prepare(dst, count, xy != null ? xy.length / 2 : 0, CvType.CV_32FC2))
+            dst.put(0, 0, xy, 0, count * 2);
+    }
+
+    public static void vector_Point2d_to_Mat(double[] xy, int count, Mat dst) {
+        if (prepare(dst, count, xy != null ? xy.length / 2 : 0, CvType.CV_64FC2))
+            dst.put(0, 0, xy, 0, count * 2);
+    }
+
+    public static int Mat_to_vector_Point(Mat m, int[] xy) {
+        int count = checkVector(m, CvType.CV_32SC2, "CvType.CV_32SC2");
+        checkLength(xy, xy != null ? xy.length / 2 : 0, count);
+        if (count > 0)
+            m.get(0, 0, xy);
+        return count;
+    }
+
+    public static int Mat_to_vector_Point2f(Mat m, float[] xy) {
+        int count = checkVector(m, CvType.CV_32FC2, "CvType.CV_32FC2");
+        checkLength(xy, xy != null ? xy.length / 2 : 0, count);
+        if (count > 0)
+            m.get(0, 0, xy);
+        return count;
+    }
+
+    public static int Mat_to_vector_Point2d(Mat m, double[] xy) {
+        int count = checkVector(m, CvType.CV_64FC2, "CvType.CV_64FC2");
+        checkLength(xy, xy != null ? xy.length / 2 : 0, count);
+        if (count > 0)
+            m.get(0, 0, xy);
+        return count;
+    }
+
+    public static int[] Mat_to_vector_Point(Mat m, List<Point> pts, int[] buff) {
+        int count = checkList(m, pts, CvType.CV_32SC2, "CvType.CV_32SC2");
+        buff = scratch(buff, 2 * count);
+        if (count > 0)
+            m.get(0, 0, buff);
+        for (int i = 0; i < count; i++) {
+            Point p = reusePoint(pts, i);
+            p.x = buff[2 * i];
+            p.y = buff[2 * i + 1];
+        }
+        return buff;
+    }
+
+    public static float[] Mat_to_vector_Point2f(Mat m, List<Point> pts, float[] buff) {
+        int count = checkList(m, pts, CvType.CV_32FC2, "CvType.CV_32FC2");
+        buff = scratch(buff, 2 * count);
+        if (count > 0)
+            m.get(0, 0, buff);
+        for (int i = 0; i < count; i++) {
+            Point p = reusePoint(pts, i);
+            p.x = buff[2 * i];
+            p.y = buff[2 * i + 1];
+        }
+        return buff;
+    }
+
+    public static double[] Mat_to_vector_Point2d(Mat m, List<Point> pts, double[] buff) {
+        int count = checkList(m, pts, CvType.CV_64FC2, "CvType.CV_64FC2");
+        buff = scratch(buff, 2 * count);
+        if (count > 0)
+            m.get(0, 0, buff);
+        for (int i = 0; i < count; i++) {
+            Point p = reusePoint(pts, i);
+            p.x = buff[2 * i];
+            p.y = buff[2 * i + 1];
+        }
+        return buff;
+    }
+
+    public static void vector_Point3i_to_Mat(int[] xyz, int count, Mat dst) {
+        if (prepare(dst, count, xyz != null ? xyz.length / 3 : 0, CvType.CV_32SC3))
+            dst.put(0, 0, xyz, 0, count * 3);
+    }
+
+    public static void vector_Point3f_to_Mat(float[] xyz, int count, Mat dst) {
+        if (prepare(dst, count, xyz != null ? xyz.length / 3 : 0, CvType.CV_32FC3))
+            dst.put(0, 0, xyz, 0, count * 3);
+    }
+
+    public static void vector_Point3d_to_Mat(double[] xyz, int count, Mat dst) {
+        if (prepare(dst, count, xyz != null ? xyz.length / 3 : 0, CvType.CV_64FC3))
+            dst.put(0, 0, xyz, 0, count * 3);
+    }
+
+    public static int Mat_to_vector_Point3i(Mat m, int[] xyz) {
+        int count = checkVector(m, CvType.CV_32SC3, "CvType.CV_32SC3");
+        checkLength(xyz, xyz != null ? xyz.length / 3 : 0, count);
+        if (count > 0)
+            m.get(0, 0, xyz);
+        return count;
+    }
+
+    public static int Mat_to_vector_Point3f(Mat m, float[] xyz) {
+        int count = checkVector(m, CvType.CV_32FC3, "CvType.CV_32FC3");
+        checkLength(xyz, xyz != null ? xyz.length / 3 : 0, count);
+        if (count > 0)
+            m.get(0, 0, xyz);
+        return count;
+    }
+
+    public static int Mat_to_vector_Point3d(Mat m, double[] xyz) {
+        int count = checkVector(m, CvType.CV_64FC3, "CvType.CV_64FC3");
+        checkLength(xyz, xyz != null ? xyz.length / 3 : 0, count);
+        if (count > 0)
+            m.get(0, 0, xyz);
+        return count;
+    }
+
+    public static float[] Mat_to_vector_Point3f(Mat m, List<Point3> pts, float[] buff) {
+        int count = checkList(m, pts, CvType.CV_32FC3, "CvType.CV_32FC3");
+        buff = scratch(buff, 3 * count);
+        if (count > 0)
+            m.get(0, 0, buff);
+        for (int i = 0; i < count; i++) {
+            Point3 p = i < pts.size() ? pts.get(i) : add(pts, new Point3());
+            p.x = buff[3 * i];
+            p.y = buff[3 * i + 1];
+            p.z = buff[3 * i + 2];
+        }
+        return buff;
+    }
+
+    public static void vector_Rect_to_Mat(int[] xywh, int count, Mat dst) {
+        if (prepare(dst, count, xywh != null ? xywh.length / 4 : 0, CvType.CV_32SC4))
+            dst.put(0, 0, xywh, 0, count * 4);
+    }
+
+    public static int Mat_to_vector_Rect(Mat m, int[] xywh) {
+        int count = checkVector(m, CvType.CV_32SC4, "CvType.CV_32SC4");
+        checkLength(xywh, xywh != null ? xywh.length / 4 : 0, count);
+        if (count > 0)
+            m.get(0, 0, xywh);
+        return count;
+    }
+
+    public static int[] Mat_to_vector_Rect(Mat m, List<Rect> rs, int[] buff) {
+        int count = checkList(m, rs, CvType.CV_32SC4, "CvType.CV_32SC4");
+        buff = scratch(buff, 4 * count);
+        if (count > 0)
+            m.get(0, 0, buff);
+        for (int i = 0; i < count; i++) {
+            Rect r = i < rs.size() ? rs.get(i) : add(rs, new Rect());
+            r.x = buff[4 * i];
+            r.y = buff[4 * i + 1];
+            r.width = buff[4 * i + 2];
+            r.height = buff[4 * i + 3];
+        }
+        return buff;
+    }
+
+    public static void vector_Rect2d_to_Mat(double[] xywh, int count, Mat dst) {
+        if (prepare(dst, count, xywh != null ? xywh.length / 4 : 0, CvType.CV_64FC4))
+            dst.put(0, 0, xywh, 0, count * 4);
+    }
+
+    public static int Mat_to_vector_Rect2d(Mat m, double[] xywh) {
+        int count = checkVector(m, CvType.CV_64FC4, "CvType.CV_64FC4");
+        checkLength(xywh, xywh != null ? xywh.length / 4 : 0, count);
+        if (count > 0)
+            m.get(0, 0, xywh);
+        return count;
+    }
+
+    public static double[] Mat_to_vector_Rect2d(Mat m, List<Rect2d> rs, double[] buff) {
+        int count = checkList(m, rs, CvType.CV_64FC4, "CvType.CV_64FC4");
+        buff = scratch(buff, 4 * count);
+        if (count > 0)
+            m.get(0, 0, buff);
+        for (int i = 0; i < count; i++) {
+            Rect2d r = i < rs.size() ? rs.get(i) : add(rs, new Rect2d());
+            r.x = buff[4 * i];
+            r.y = buff[4 * i + 1];
+            r.width = buff[4 * i + 2];
+            r.height = buff[4 * i + 3];
+        }
+        return buff;
+    }
+
+    /** Seven values per keypoint: x, y, size, angle, response, octave, class_id. */
+    public static void vector_KeyPoint_to_Mat(double[] kps, int count, Mat dst) {
+        if (prepare(dst, count, kps != null ? kps.length / 7 : 0, CvType.CV_64FC(7)))
+            dst.put(0, 0, kps, 0, count * 7);
+    }
+
+    public static int Mat_to_vector_KeyPoint(Mat m, double[] kps) {
+        int count = checkVector(m, CvType.CV_64FC(7), "CvType.CV_64FC(7)");
+        checkLength(kps, kps != null ? kps.length / 7 : 0, count);
+        if (count > 0)
+            m.get(0, 0, kps);
+        return count;
+    }
+
+    public static double[] Mat_to_vector_KeyPoint(Mat m, List<KeyPoint> kps, double[] buff) {
+        int count = checkList(m, kps, CvType.CV_64FC(7), "CvType.CV_64FC(7)");
+        buff = scratch(buff, 7 * count);
+        if (count > 0)
+            m.get(0, 0, buff);
+        for (int i = 0; i < count; i++) {
+            KeyPoint kp = i < kps.size() ? kps.get(i) : add(kps, new KeyPoint());
+            kp.pt.x = buff[7 * i];
+            kp.pt.y = buff[7 * i + 1];
+            kp.size = (float) buff[7 * i + 2];
+            kp.angle = (float) buff[7 * i + 3];
+            kp.response = (float) buff[7 * i + 4];
+            kp.octave = (int) buff[7 * i + 5];
+            kp.class_id = (int) buff[7 * i + 6];
+        }
+        return buff;
+    }
+
+    /** Four values per match: queryIdx, trainIdx, imgIdx, distance. */
+    public static void vector_DMatch_to_Mat(double[] matches, int count, Mat dst) {
+        if (prepare(dst, count, matches != null ? matches.length / 4 : 0, CvType.CV_64FC4))
+            dst.put(0, 0, matches, 0, count * 4);
+    }
+
+    public static int Mat_to_vector_DMatch(Mat m, double[] matches) {
+        int count = checkVector(m, CvType.CV_64FC4, "CvType.CV_64FC4");
+        checkLength(matches, matches != null ? matches.length / 4 : 0, count);
+        if (count > 0)
+            m.get(0, 0, matches);
+        return count;
+    }
+
+    public static double[] Mat_to_vector_DMatch(Mat m, List<DMatch> matches, double[] buff) {
+        int count = checkList(m, matches, CvType.CV_64FC4, "CvType.CV_64FC4");
+        buff = scratch(buff, 4 * count);
+        if (count > 0)
+            m.get(0, 0, buff);
+        for (int i = 0; i < count; i++) {
+            DMatch dm = i < matches.size() ? matches.get(i) : add(matches, new DMatch());
+            dm.queryIdx = (int) buff[4 * i];
+            dm.trainIdx = (int) buff[4 * i + 1];
+            dm.imgIdx = (int) buff[4 * i + 2];
+            dm.distance = (float) buff[4 * i + 3];
+        }
+        return buff;
+    }
+
+    /** Five values per rectangle: center x, center y, width, height, angle. */
+    public static void vector_RotatedRect_to_Mat(float[] rs, int count, Mat dst) {
+        if (prepare(dst, count, rs != null ? rs.length / 5 : 0, CvType.CV_32FC(5)))
+            dst.put(0, 0, rs, 0, count * 5);
+    }
+
+    public static int Mat_to_vector_RotatedRect(Mat m, float[] rs) {
+        int count = checkVector(m, CvType.CV_32FC(5), "CvType.CV_32FC5");
+        checkLength(rs, rs != null ? rs.length / 5 : 0, count);
+        if (count > 0)
+            m.get(0, 0, rs);
+        return count;
+    }
+
+    public static float[] Mat_to_vector_RotatedRect(Mat m, List<RotatedRect> rs, float[] buff) {
+        int count = checkList(m, rs, CvType.CV_32FC(5), "CvType.CV_32FC5");
+        buff = scratch(buff, 5 * count);
+        if (count > 0)
+            m.get(0, 0, buff);
+        for (int i = 0; i < count; i++) {
+            RotatedRect r = i < rs.size() ? rs.get(i) : add(rs, new RotatedRect());
+            r.center.x = buff[5 * i];
+            r.center.y = buff[5 * i + 1];
+            r.size.width = buff[5 * i + 2];
+            r.size.height = buff[5 * i + 3];
+            r.angle = buff[5 * i + 4];
+        }
+        return buff;
+    }
+
+    // Sizes dst for count elements; false when there is nothing to copy
+    private static boolean prepare(Mat dst, int count, int available, int type) {
+        if (dst == null)
+            throw new IllegalArgumentException("Output Mat can't be null");
+        if (count < 0 || count > available)
+            throw new IllegalArgumentException("count (" + count + ") exceeds the " + available + " elements provided");
+        if (count == 0) {
+            dst.release();
+            return false;
+        }
+        dst.create(count, 1, type);
+        return true;
+    }
+
+    private static int checkVector(Mat m, int type, String typeName) {
+        if (m == null)
+            throw new IllegalArgumentException("Input Mat can't be null");
+        if (m.empty())
+            return 0;
+        if (type != m.type() || m.cols() != 1)
+            throw new IllegalArgumentException(
+                    typeName + " != m.type() ||  m.cols()!=1\n" + m);
+        return m.rows();
+    }
+
+    private static void checkLength(Object dst, int available, int count) {
+        if (dst == null)
+            throw new IllegalArgumentException("Output can't be null");
+        if (available < count)
+            throw new IllegalArgumentException("Output holds " + available + " elements, " + count + " needed");
+    }
+
+    private static int checkBuffer(ByteBuffer buf, int type) {
+        if (buf == null || !buf.isDirect())
+            throw new IllegalArgumentException("A direct ByteBuffer is required");
+        if (buf.order() != ByteOrder.nativeOrder() && CvType.ELEM_SIZE(type) > 1)
+            throw new IllegalArgumentException("ByteBuffer must use the native byte order");
+        if (CvType.channels(type) != 1)
+            throw new IllegalArgumentException("Only single-channel vectors are supported: " + CvType.typeToString(type));
+        return CvType.ELEM_SIZE(type);
+    }
+
+    private static <T> int checkList(Mat m, List<T> list, int type, String typeName) {
+        if (list == null)
+            throw new IllegalArgumentException("Output List can't be null");
+        int count = checkVector(m, type, typeName);
+        // trim from the end, which is O(1) for ArrayList
+        for (int i = list.size() - 1; i >= count; i--)
+            list.remove(i);
+        return count;
+    }
+
+    private static int[] scratch(int[] buff, int length) {
+        return buff != null && buff.length >= length ? buff : new int[length];
+    }
+
+    private static float[] scratch(float[] buff, int length) {
+        return buff != null && buff.length >= length ? buff : new float[length];
+    }
+
+    private static double[] scratch(double[] buff, int length) {
+        return buff != null && buff.length >= length ? buff : new double[length];
+    }
+
+    private static Point reusePoint(List<Point> pts, int i) {
+        return i < pts.size() ? pts.get(i) : add(pts, new Point());
+    }
+
+    private static <T> T add(List<T> list, T item) {
+        list.add(item);
+        return item;
+    }
 }
@@ -0,0 +1,284 @@
+// JNI helpers for the OpenCV Java bindings that need direct access to cv::Mat members.
+//
+// Only inline cv::Mat members are used, so this library does not link libopencv_java4 and
+// adds nothing to the size of the main OpenCV library.
+
+#include <jni.h>
+#include <android/bitmap.h>
+#include <string.h>
+
+#include <algorithm>
+
+#include <opencv2/core/mat.hpp>
+
+namespace {
+
+// Fixed-point BT.601 luma with the coefficients and rounding cv::cvtColor() uses for
+// COLOR_RGBA2GRAY and COLOR_BGR5652GRAY, so results are bit-exact
+enum { GRAY_SHIFT = 15, R2Y = 9798, G2Y = 19235, B2Y = 3735 };
+
+inline uchar toGray(int r, int g, int b)
+{
+    return (uchar)((r * R2Y + g * G2Y + b * B2Y + (1 << (GRAY_SHIFT - 1))) >> GRAY_SHIFT);
+}
+
+// Same rounding as cv::cvtColor(COLOR_mRGBA2RGBA)
+inline uchar unpremultiply(int v, int a)
+{
+    if (a == 0)
+        return 0;
+    int u = (v * 255 + a / 2) / a;
+    return (uchar)(u > 255 ? 255 : u);
+}
+
+// Android RGB_565 keeps red in the high bits; expanded like cv::cvtColor(COLOR_BGR5652RGBA)
+inline int red565(int t)   { return (t >> 8) & 0xf8; }
+inline int green565(int t) { return (t >> 3) & 0xfc; }
+inline int blue565(int t)  { return (t << 3) & 0xf8; }
+
+void rgbaRowToGray(const uchar* src, uchar* dst, int width, bool unPremultiply)
+{
+    if (unPremultiply) {
+        for (int i = 0; i < width; i++, src += 4) {
+            int a = src[3];
+            dst[i] = toGray(unpremultiply(src[0], a), unpremultiply(src[1], a), unpremultiply(src[2], a));
+        }
+    } else {
+        for (int i = 0; i < width; i++, src += 4)
+            dst[i] = toGray(src[0], src[1], src[2]);
+    }
+}
+
+void rgb565RowToGray(const uchar* src, uchar* dst, int width)
+{
+    const uint16_t* p = reinterpret_cast<const uint16_t*>(src);
+    for (int i = 0; i < width; i++) {
+        int t = p[i];
+        dst[i] = toGray(red565(t), green565(t), blue565(t));
+    }
+}
+
+void rgbaRowToRgba(const uchar* src, uchar* dst, int width, bool unPremultiply)
+{
+    if (!unPremultiply) {
+        memcpy(dst, src, (size_t)width * 4);
+        return;
+    }
+    for (int i = 0; i < width; i++, src += 4, dst += 4) {
+        int a = src[3];
+        dst[0] = unpremultiply(src[0], a);
+        dst[1] = unpremultiply(src[1], a);
+        dst[2] = unpremultiply(src[2], a);
+        dst[3] = (uchar)a;
+    }
+}
+
+void rgb565RowToRgba(const uchar* src, uchar* dst, int width)
+{
+    const uint16_t* p = reinterpret_cast<const uint16_t*>(src);
+    for (int i = 0; i < width; i++, dst += 4) {
+        int t = p[i];
+        dst[0] = (uchar)red565(t);
+        dst[1] = (uchar)green565(t);
+        dst[2] = (uchar)blue565(t);
+        dst[3] = 255;
+    }
+}
+
+void throwIllegalArgument(JNIEnv* env, const char* message)
+{
+    jclass cls = env->FindClass("java/lang/IllegalArgumentException");
+    if (cls)
+        env->ThrowNew(cls, message);
+}
+
+// Converts every row of the bitmap into dst at (x, y); dst must be 8UC1 (gray) or 8UC4 (RGBA)
+void bitmapToMat(JNIEnv* env, jobject bitmap, cv::Mat* dst, int x, int y, bool gray, bool unPremultiply)
+{
+    AndroidBitmapInfo info;
+    if (AndroidBitmap_getInfo(env, bitmap, &info) != ANDROID_BITMAP_RESULT_SUCCESS) {
+        throwIllegalArgument(env, "AndroidBitmap_getInfo failed");
+        return;
+    }
+    if (info.format != ANDROID_BITMAP_FORMAT_RGBA_8888 && info.format != ANDROID_BITMAP_FORMAT_RGB_565) {
+        throwIllegalArgument(env, "Bitmap must be ARGB_8888 or RGB_565");
+        return;
+    }
+    if (!dst || dst->dims != 2 || x < 0 || y < 0
+            || (long long)x + info.width > dst->cols || (long long)y + info.height > dst->rows) {
+        throwIllegalArgument(env, "Bitmap does not fit into the Mat at the given position");
+        return;
+    }
+    void* pixels = NULL;
+    if (AndroidBitmap_lockPixels(env, bitmap, &pixels) != ANDROID_BITMAP_RESULT_SUCCESS || !pixels) {
+        throwIllegalArgument(env, "AndroidBitmap_lockPixels failed");
+        return;
+    }
+    const size_t elemSize = gray ? 1 : 4;
+    const bool rgba = info.format == ANDROID_BITMAP_FORMAT_RGBA_8888;
+    const int width = (int)info.width;
+    for (uint32_t row = 0; row < info.height; row++) {
+        const uchar* src = static_cast<const uchar*>(pixels) + (size_t)row * info.stride;
+        uchar* out = dst->data + (size_t)(y + row) * dst->step.p[0] + (size_t)x * elemSize;
+        if (gray) {
+            if (rgba)
+                rgbaRowToGray(src, out, width, unPremultiply);
+            else
+                rgb565RowToGray(src, out, width);
+        } else {
+            if (rgba)
+                rgbaRowToRgba(src, out, width, unPremultiply);
+            else
+                rgb565RowToRgba(src, out, width);
+        }
+    }
+    AndroidBitmap_unlockPixels(env, bitmap);
+}
+
+template<typename T> struct copyRegion;
+
+template<> struct copyRegion<jfloat> {
+    static void get(JNIEnv* env, jfloatArray a, jsize start, jsize n, jfloat* out) { env->GetFloatArrayRegion(a, start, n, out); }
+    static void set(JNIEnv* env, jfloatArray a, jsize start, jsize n, const jfloat* in) { env->SetFloatArrayRegion(a, start, n, in); }
+};
+
+template<> struct copyRegion<jint> {
+    static void get(JNIEnv* env, jintArray a, jsize start, jsize n, jint* out) { env->GetIntArrayRegion(a, start, n, out); }
+    static void set(JNIEnv* env, jintArray a, jsize start, jsize n, const jint* in) { env->SetIntArrayRegion(a, start, n, in); }
+};
+
+template<> struct copyRegion<jdouble> {
+    static void get(JNIEnv* env, jdoubleArray a, jsize start, jsize n, jdouble* out) { env->GetDoubleArrayRegion(a, start, n, out); }
+    static void set(JNIEnv* env, jdoubleArray a, jsize start, jsize n, const jdouble* in) { env->SetDoubleArrayRegion(a, start, n, in); }
+};
+
+// Visits the rows of a 2D Mat from element (row, col) on, in the order Mat.put()/get() use,
+// calling f(matBytes, bufferOffset, n) for each run of at most `bytes` bytes in total.
+// Returns the number of bytes visited, or 0 if the Mat or the position is invalid.
+template<typename F>
+size_t forEachRun(const cv::Mat* me, int depth, int row, int col, size_t bytes, F f)
+{
+    if (!me || !me->data || me->dims != 2 || me->depth() != depth
+            || row < 0 || col < 0 || row >= me->rows || col >= me->cols)
+        return 0;
+    const size_t elemSize = me->elemSize();
+    const size_t rowBytes = (size_t)me->cols * elemSize;
+    size_t done = 0;
+    for (int r = row; r < me->rows && done < bytes; r++) {
+        size_t start = r == row ? (size_t)col * elemSize : 0;
+        size_t n = std::min(rowBytes - start, bytes - done);
+        f(me->data + (size_t)r * me->step.p[0] + start, done, n);
+        done += n;
+    }
+    return done;
+}
+
+// Copies between a Java array region and the Mat without pinning the rest of the array
+template<typename T, typename Array>
+jint copyArray(JNIEnv* env, jlong self, int depth, jint row, jint col, Array data, jint offset, jint length, bool toMat)
+{
+    const cv::Mat* me = reinterpret_cast<const cv::Mat*>(self);
+    size_t done = forEachRun(me, depth, row, col, (size_t)length * sizeof(T),
+            [&](uchar* mat, size_t at, size_t n) {
+        jsize start = offset + (jsize)(at / sizeof(T));
+        jsize count = (jsize)(n / sizeof(T));
+        if (toMat)
+            copyRegion<T>::get(env, data, start, count, reinterpret_cast<T*>(mat));
+        else
+            copyRegion<T>::set(env, data, start, count, reinterpret_cast<const T*>(mat));
+    });
+    return (jint)done;
+}
+
+jint copyBuffer(JNIEnv* env, jlong self, int depth, jint row, jint col, jobject buffer, jlong offset, jint bytes, bool toMat)
+{
+    uchar* address = static_cast<uchar*>(env->GetDirectBufferAddress(buffer));
+    if (!address) {
+        throwIllegalArgument(env, "A direct buffer is required");
+        return 0;
+    }
+    address += offset;
+    size_t done = forEachRun(reinterpret_cast<const cv::Mat*>(self), depth, row, col, (size_t)bytes,
+            [&](uchar* mat, size_t at, size_t n) {
+        if (toMat)
+            memcpy(mat, address + at, n);
+        else
+            memcpy(address + at, mat, n);
+    });
+    return (jint)done;
+}
+
+} // namespace
+
+extern "C" {
+
+JNIEXPORT jobject JNICALL Java_org_opencv_core_MatBuffers_nAsByteBuffer
+  (JNIEnv* env, jclass, jlong self)
+{
+    cv::Mat* me = reinterpret_cast<cv::Mat*>(self);
+    if (!me || !me->data || !me->isContinuous())
+        return NULL;
+    return env->NewDirectByteBuffer(me->data, (jlong)(me->dataend - me->data));
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_MatBuffers_nPutF
+  (JNIEnv* env, jclass, jlong self, jint row, jint col, jfloatArray data, jint offset, jint length)
+{
+    return copyArray<jfloat>(env, self, CV_32F, row, col, data, offset, length, true);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_MatBuffers_nGetF
+  (JNIEnv* env, jclass, jlong self, jint row, jint col, jfloatArray data, jint offset, jint length)
+{
+    return copyArray<jfloat>(env, self, CV_32F, row, col, data, offset, length, false);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_MatBuffers_nPutI
+  (JNIEnv* env, jclass, jlong self, jint row, jint col, jintArray data, jint offset, jint length)
+{
+    return copyArray<jint>(env, self, CV_32S, row, col, data, offset, length, true);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_MatBuffers_nGetI
+  (JNIEnv* env, jclass, jlong self, jint row, jint col, jintArray data, jint offset, jint length)
+{
+    return copyArray<jint>(env, self, CV_32S, row, col, data, offset, length, false);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_MatBuffers_nPutD
+  (JNIEnv* env, jclass, jlong self, jint row, jint col, jdoubleArray data, jint offset, jint length)
+{
+    return copyArray<jdouble>(env, self, CV_64F, row, col, data, offset, length, true);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_MatBuffers_nGetD
+  (JNIEnv* env, jclass, jlong self, jint row, jint col, jdoubleArray data, jint offset, jint length)
+{
+    return copyArray<jdouble>(env, self, CV_64F, row, col, data, offset, length, false);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_MatBuffers_nPutBuffer
+  (JNIEnv* env, jclass, jlong self, jint depth, jint row, jint col, jobject buffer, jlong offset, jint bytes)
+{
+    return copyBuffer(env, self, depth, row, col, buffer, offset, bytes, true);
+}
+
+JNIEXPORT jint JNICALL Java_org_opencv_core_MatBuffers_nGetBuffer
+  (JNIEnv* env, jclass, jlong self, jint depth, jint row, jint col, jobject buffer, jlong offset, jint bytes)
+{
+    return copyBuffer(env, self, depth, row, col, buffer, offset, bytes, false);
+}
+
+JNIEXPORT void JNICALL Java_org_opencv_android_UtilsNative_nBitmapToGray
+  (JNIEnv* env, jclass, jobject bitmap, jlong m_addr, jint x, jint y, jboolean unPremultiplyAlpha)
+{
+    bitmapToMat(env, bitmap, reinterpret_cast<cv::Mat*>(m_addr), x, y, true, unPremultiplyAlpha);
+}
+
+JNIEXPORT void JNICALL Java_org_opencv_android_UtilsNative_nBitmapToRgba
+  (JNIEnv* env, jclass, jobject bitmap, jlong m_addr, jint x, jint y, jboolean unPremultiplyAlpha)
+{
+    bitmapToMat(env, bitmap, reinterpret_cast<cv::Mat*>(m_addr), x, y, false, unPremultiplyAlpha);
+}
+
+} // extern "C"